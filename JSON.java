@@ -1,7 +1,19 @@
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
-import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
 import java.text.ParseException;
 
 /**
@@ -12,196 +24,321 @@ import java.text.ParseException;
  * @author Keely Miyamoto
  */
 public class JSON {
-  // +---------------+-----------------------------------------------
-  // | Static fields |
-  // +---------------+
+  // +----------------+----------------------------------------------
+  // | Static methods |
+  // +----------------+
 
   /**
-   * The current position in the input.
+   * Parse a string into JSON.
    */
-  static int pos;
+  public static JSONValue parse(String source) throws ParseException, IOException {
+    return JSONEvents.parse("parse", null, new JSONParser(source));
+  } // parse(String)
 
   /**
-   * A field to keep track of the previous value of 'ch'. This helps us
-   * check for end characters like ']' and '}' when we recursively call
-   * 'parseKernel'.
+   * Parse UTF-8 bytes into JSON.
    */
-  static int prevCH;
+  public static JSONValue parse(byte[] source) throws ParseException, IOException {
+    return JSONEvents.parse("parse", null, new JSONParser(source));
+  } // parse(byte[])
 
-  // +----------------+----------------------------------------------
-  // | Static methods |
-  // +----------------+
+  /**
+   * Parse the remaining UTF-8 bytes of a buffer into JSON.
+   */
+  public static JSONValue parse(ByteBuffer source) throws ParseException, IOException {
+    return JSONEvents.parse("parse", null, new JSONParser(source));
+  } // parse(ByteBuffer)
 
   /**
-   * Parse a string into JSON.
+   * Parse a UTF-8 stream into JSON.
    */
-  public static JSONValue parse(String source) throws ParseException, IOException {
-    return parse(new StringReader(source));
-  } // parse(String)
+  public static JSONValue parse(InputStream source) throws ParseException, IOException {
+    return JSONEvents.parse("parse", null, new JSONParser(source));
+  } // parse(InputStream)
 
   /**
-   * Parse a file into JSON.
+   * Parse a UTF-8 file into JSON.
    */
   public static JSONValue parseFile(String filename) throws ParseException, IOException {
-    FileReader reader = new FileReader(filename);
-    JSONValue result = parse(reader);
-    reader.close();
-    return result;
+    return parseFile(Path.of(filename));
   } // parseFile(String)
 
+  /**
+   * Parse a UTF-8 file into JSON. The file is memory-mapped and parsed
+   * straight from the mapped pages.
+   */
+  public static JSONValue parseFile(Path file) throws ParseException, IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      return JSONEvents.parse("parseFile", file.toString(),
+          new JSONParser(new JSONMappedLexer(channel)));
+    } // try
+  } // parseFile(Path)
+
+  /**
+   * Parse a file in a particular charset into JSON.
+   */
+  public static JSONValue parseFile(Path file, Charset charset)
+      throws ParseException, IOException {
+    if (charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII)) {
+      return parseFile(file);
+    } // if
+    try (Reader reader = Files.newBufferedReader(file, charset)) {
+      return parse(reader);
+    } // try
+  } // parseFile(Path, Charset)
+
   /**
    * Parse JSON from a reader.
    */
   public static JSONValue parse(Reader source) throws ParseException, IOException {
-    pos = 0;
-    JSONValue result = parseKernel(source);
-    if (-1 != skipWhitespace(source)) {
-      throw new ParseException("Characters remain at end", pos);
-    } // if
-    return result;
+    return JSONEvents.parse("parse", null, new JSONParser(source));
   } // parse(Reader)
 
-  // +---------------+-----------------------------------------------
-  // | Local helpers |
-  // +---------------+
+  /**
+   * Parse a string, reporting its contents to a handler rather than
+   * building a JSONValue.
+   */
+  public static void parse(String source, JSONHandler handler)
+      throws ParseException, IOException {
+    JSONEvents.accept("parse", null, new JSONReader(source), handler);
+  } // parse(String, JSONHandler)
 
   /**
-   * Parse JSON from a reader, keeping track of the current position
-   */
-  static JSONValue parseKernel(Reader source) throws ParseException, IOException {
-    // Declare some objects for possible return types.
-    String input = "";
-    JSONArray retArr = new JSONArray();
-    JSONHash hashTable = new JSONHash();
-    
-    // Declare 'ch' variable for chars that we read in.
-    int ch;
-    // Get next char.
-    ch = skipWhitespace(source);
-    // Check for EOF.
-    if (-1 == ch) {
-      throw new ParseException("Unexpected end of file", pos);
-    } // if
+   * Parse from a reader, reporting the contents to a handler.
+   */
+  public static void parse(Reader source, JSONHandler handler)
+      throws ParseException, IOException {
+    JSONEvents.accept("parse", null, new JSONReader(source), handler);
+  } // parse(Reader, JSONHandler)
+
+  /**
+   * Parse UTF-8 bytes, reporting their contents to a handler.
+   */
+  public static void parse(byte[] source, JSONHandler handler)
+      throws ParseException, IOException {
+    JSONEvents.accept("parse", null, new JSONReader(source), handler);
+  } // parse(byte[], JSONHandler)
+
+  /**
+   * Parse the remaining UTF-8 bytes of a buffer, reporting their
+   * contents to a handler.
+   */
+  public static void parse(ByteBuffer source, JSONHandler handler)
+      throws ParseException, IOException {
+    JSONEvents.accept("parse", null, new JSONReader(source), handler);
+  } // parse(ByteBuffer, JSONHandler)
+
+  /**
+   * Parse a UTF-8 stream, reporting its contents to a handler.
+   */
+  public static void parse(InputStream source, JSONHandler handler)
+      throws ParseException, IOException {
+    JSONEvents.accept("parse", null, new JSONReader(source), handler);
+  } // parse(InputStream, JSONHandler)
+
+  /**
+   * Parse a UTF-8 file, reporting its contents to a handler.
+   */
+  public static void parseFile(Path file, JSONHandler handler)
+      throws ParseException, IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      JSONEvents.accept("parseFile", file.toString(),
+          new JSONReader(new JSONMappedLexer(channel)), handler);
+    } // try
+  } // parseFile(Path, JSONHandler)
+
+  /**
+   * Parse a string into JSON lazily: arrays and hashes are only parsed
+   * when they are first used. Like any other tree, a lazy tree may be
+   * read from several threads at once (each array or hash is parsed
+   * once, by whichever thread gets there first), but changes to it
+   * need outside synchronization.
+   */
+  public static JSONValue parseLazy(String source) throws ParseException, IOException {
+    return new JSONParser(source).parseLazy();
+  } // parseLazy(String)
+
+  /**
+   * Parse UTF-8 bytes into JSON lazily.
+   */
+  public static JSONValue parseLazy(byte[] source) throws ParseException, IOException {
+    return new JSONParser(source).parseLazy();
+  } // parseLazy(byte[])
+
+  /**
+   * Parse newline-delimited JSON (one value per line) from a string.
+   * The returned stream is parallel and ordered; call unordered() on it
+   * if the order of the records does not matter.
+   */
+  public static Stream<JSONValue> parseLines(String source) {
+    return parseLines(source.getBytes(StandardCharsets.UTF_8));
+  } // parseLines(String)
+
+  /**
+   * Parse newline-delimited JSON from UTF-8 bytes.
+   */
+  public static Stream<JSONValue> parseLines(byte[] source) {
+    return JSONLines.stream(ByteBuffer.wrap(source));
+  } // parseLines(byte[])
 
-    if ((char) ch == '[') {
-      // While within the array...
-      while (ch != ']') {
-        // Add next element to the array.
-        retArr.add(parseKernel(source));
-        // Get previous value of 'ch'.
-        ch = prevCH;
-      } // while
-      // If array has ended, we want to save the current value of 'ch' and return the JSONArray.
-      if (((ch = skipWhitespace(source)) == -1) || (ch == ',') || (ch == ']') || (ch == '}')) {
-        prevCH = ch;
-        return retArr;
-      } else {
-        throw new IOException("Invalid array format.");
-      } // if
-    } // if JSONArray
-
-    if ((char) ch == '\"') {
-      // While we are in the String...
-      while ((ch = source.read()) != '\"') {
-        // Append next char to the String.
-        input += String.valueOf((char) ch);
-      } // while
-      // If String ends, we want to save the current value of 'ch' and return the String as a JSONString.
-      if (((ch = skipWhitespace(source)) == -1) || (ch == ',') || (ch == ']') || (ch == '}') || (ch == ':')) {
-        prevCH = ch;
-        return new JSONString(input);
-      } else {
-        throw new IOException("Invalid String format.");
-      } // if
-    } // if JSONString
-
-    // Match first char to constant.
-    if (((char) ch == 't') || ((char) ch == 'f') || ((char) ch == 'n')) {
-      // Finish building String.
-      do {
-        input += String.valueOf((char) ch);
-        ch = skipWhitespace(source);
-      } while ((ch != -1) && (ch != ',') && (ch != ']') && (ch != '}'));
-      // Save current value of 'ch'.
-      prevCH = ch;
-      // Match to JSONConstant.
-      switch(input) {
-        case "true":
-          return JSONConstant.TRUE;
-        case "false":
-          return JSONConstant.FALSE;
-        case "null":
-          return JSONConstant.NULL;  
-      } // switch
-    } // if JSONConstant
-
-    if ((char) ch == '{') {
-      // Declare JSONValues for 'key' and 'val'.
-      JSONValue key = null;
-      JSONValue val = null;
-      // While in the JSONHash...
-      while (ch != '}') {
-        // Get next JSONValue.
-        JSONValue next = parseKernel(source);
-        // Get previous value of 'ch'.
-        ch = prevCH;
-        // If previous is ':', then we found the key. Update 'key'.
-        if (':' == ch) {
-          key = (JSONString) next;
-        // If previous is ',' or '}', then we found the value. Update 'val'.
-        } else if (',' == ch || '}' == ch) {
-          val = next;
-          // Set next KVPair in hashTable.
-          hashTable.set((JSONString) key, val);
-        } // if
-      } // while
-      // If at the end of the JSONHash, save previous value of 'ch' and return hashTable.
-      if (((ch = skipWhitespace(source)) == -1) || (ch != ',') || (ch == ']') || (ch == '}') || (ch == ':')) {
-        prevCH = ch;
-        return hashTable;
-      } else { 
-        throw new IOException("Invalid Hash format.");
-      } // if
-    } // if JSONHash
-
-    if ((Character.isDigit((char) ch)) || ((char) ch == '.') || ((char) ch == '-')) {
-      // Build number following either a digit, decimal, or negative sign.
-      do {
-        input += String.valueOf((char) ch);
-      } while (((ch = skipWhitespace(source)) != -1) && (ch != ',') && (ch != ']') && (ch != '}'));
-      // Save previous 'ch'.
-      prevCH = ch;
-
-      // Check for leading 00s.
-      if (input.length() > 2) {
-        if (input.substring(0, 2).equals("-0")) {
-          throw new IOException("Negative leading 0s not allowed!");
-        }
-      } // if
-
-      // Determine if JSONInteger or JSONReal.
-      if (input.contains(".")) {
-        return new JSONReal(input);
-      } else {
-        return new JSONInteger(input);
-      } // if
-    } // if JSONInteger or if JSONReal
-
-    // If none of the above cases were met...
-    throw new IOException("No JSONValues were identified");
-  } // parseKernel
-
-  /**
-   * Get the next character from source, skipping over whitespace.
-   */
-  static int skipWhitespace(Reader source) throws IOException {
-    int ch;
-    do {
-      ch = source.read();
-      ++pos;
-    } while (isWhitespace(ch));
-    return ch;
-  } // skipWhitespace(Reader)
+  /**
+   * Parse newline-delimited JSON from a UTF-8 file.
+   */
+  public static Stream<JSONValue> parseLines(Path file) throws IOException {
+    return JSONLines.stream(file);
+  } // parseLines(Path)
+
+  /**
+   * Parse UTF-8 bytes that hold a single large array, splitting the
+   * work across the common fork-join pool.
+   */
+  public static JSONArray parseParallel(byte[] source) throws ParseException, IOException {
+    return JSONParallel.parseArray(ByteBuffer.wrap(source), ForkJoinPool.commonPool());
+  } // parseParallel(byte[])
+
+  /**
+   * Parse a UTF-8 file that holds a single large array, splitting the
+   * work across the common fork-join pool.
+   */
+  public static JSONArray parseParallel(Path file) throws ParseException, IOException {
+    return JSONParallel.parseArray(file, ForkJoinPool.commonPool());
+  } // parseParallel(Path)
+
+  /**
+   * Parse many UTF-8 files concurrently. The result holds one future
+   * per file, in the order of files; a file that fails to parse fails
+   * only its own future.
+   */
+  public static List<CompletableFuture<JSONValue>> parseAll(Collection<Path> files) {
+    return JSONBatch.parseAll(files, JSONBatch.DEFAULT_CONCURRENCY);
+  } // parseAll(Collection<Path>)
+
+  /**
+   * Parse a string straight into an object of a given type (a record,
+   * a class with a no-argument constructor, a collection, and so on).
+   */
+  public static <T> T parse(String source, Class<T> type) throws ParseException, IOException {
+    return JSONEvents.bind("parse", null, new JSONReader(source), type);
+  } // parse(String, Class<T>)
+
+  /**
+   * Parse UTF-8 bytes straight into an object of a given type.
+   */
+  public static <T> T parse(byte[] source, Class<T> type) throws ParseException, IOException {
+    return JSONEvents.bind("parse", null, new JSONReader(source), type);
+  } // parse(byte[], Class<T>)
+
+  /**
+   * Parse a UTF-8 stream straight into an object of a given type.
+   */
+  public static <T> T parse(InputStream source, Class<T> type)
+      throws ParseException, IOException {
+    return JSONEvents.bind("parse", null, new JSONReader(source), type);
+  } // parse(InputStream, Class<T>)
+
+  /**
+   * Parse JSON from a reader straight into an object of a given type.
+   */
+  public static <T> T parse(Reader source, Class<T> type) throws ParseException, IOException {
+    return JSONEvents.bind("parse", null, new JSONReader(source), type);
+  } // parse(Reader, Class<T>)
+
+  /**
+   * Parse a UTF-8 file straight into an object of a given type.
+   */
+  public static <T> T parseFile(Path file, Class<T> type) throws ParseException, IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      return JSONEvents.bind("parseFile", file.toString(),
+          new JSONReader(new JSONMappedLexer(channel)), type);
+    } // try
+  } // parseFile(Path, Class<T>)
+
+  /**
+   * Get the values that a path (a JSON Pointer, in which * matches
+   * anything) selects from a UTF-8 file. Only the selected values are
+   * built; the rest of the file is skipped.
+   */
+  public static List<JSONValue> select(Path file, String path)
+      throws ParseException, IOException {
+    JSONPath compiled = JSONPath.compile(path);
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      JSONReader reader = new JSONReader(new JSONMappedLexer(channel));
+      List<JSONValue> result = compiled.select(reader);
+      reader.nextToken();
+      return result;
+    } // try
+  } // select(Path, String)
+
+  /**
+   * Get the values that a path selects from a string.
+   */
+  public static List<JSONValue> select(String source, String path)
+      throws ParseException, IOException {
+    JSONReader reader = new JSONReader(source);
+    List<JSONValue> result = JSONPath.compile(path).select(reader);
+    reader.nextToken();
+    return result;
+  } // select(String, String)
+
+  /**
+   * Get the values that a path selects from UTF-8 bytes.
+   */
+  public static List<JSONValue> select(byte[] source, String path)
+      throws ParseException, IOException {
+    JSONReader reader = new JSONReader(source);
+    List<JSONValue> result = JSONPath.compile(path).select(reader);
+    reader.nextToken();
+    return result;
+  } // select(byte[], String)
+
+  /**
+   * Get a value as JSON text.
+   */
+  public static String toJSON(JSONValue value) {
+    return JSONWriter.toJSON(value);
+  } // toJSON(JSONValue)
+
+  /**
+   * Get an object (a record, a class with fields, a collection, and so
+   * on) as JSON text.
+   */
+  public static String toJSON(Object value) {
+    StringBuilder result = new StringBuilder();
+    try {
+      JSONEvents.write("toJSON", new JSONWriter(result), value);
+    } catch (IOException e) {
+      // A StringBuilder doesn't throw.
+      throw new UncheckedIOException(e);
+    } // try
+    return result.toString();
+  } // toJSON(Object)
+
+  /**
+   * Write an object as JSON text, flushing the output once at the end.
+   */
+  public static void write(Object value, Appendable out) throws IOException {
+    JSONEvents.write("write", new JSONWriter(out), value);
+  } // write(Object, Appendable)
+
+  /**
+   * Write a value as JSON text, flushing the output once at the end.
+   */
+  public static void write(JSONValue value, Appendable out) throws IOException {
+    JSONEvents.write("write", new JSONWriter(out), value);
+  } // write(JSONValue, Appendable)
+
+  /**
+   * Report every top-level parse and write to listener, or stop
+   * reporting if listener is null. (Flight Recorder gets the same
+   * information as the mpjson.Parse and mpjson.Write events.)
+   */
+  public static void setListener(JSONListener listener) {
+    JSONEvents.listener = listener;
+  } // setListener(JSONListener)
+
+  // +---------------+-----------------------------------------------
+  // | Local helpers |
+  // +---------------+
 
   /**
    * Determine if a character is JSON whitespace (newline, carriage return, space, or tab).
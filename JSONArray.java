@@ -1,24 +1,102 @@
 import java.io.PrintWriter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 /**
  * JSON arrays.
+ *
+ * The parser stores arrays made up entirely of integers that fit in a
+ * long in a long[], and arrays of numbers with at least one real in a
+ * double[], rather than as lists of JSONValues. Every real goes into
+ * the double[], and so does every integer that a double holds exactly
+ * (up to 2^53 either way). Each element also gets a byte that says how
+ * to write it back digit for digit: as an integer, as a real with that
+ * many digits after the point (so 2.50 keeps its zero), or, for the
+ * few reals that can't be rebuilt that way (such as 1e-05 or more than
+ * fifteen digits of pi), from the text kept in a side table. The first
+ * change that does not fit, such as adding a string or setting an
+ * element, turns the array into an ordinary list of values.
+ *
  * @author Marina Ananias
  * @author Linda Jing
  * @author Keely Miyamoto
  */
 public class JSONArray implements JSONValue {
 
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The number of elements we make room for in a new long[] or double[].
+   */
+  static final int INITIAL_CAPACITY = 10;
+
+  /**
+   * The scale of an element of doubles that is an integer.
+   */
+  static final byte SCALE_INTEGER = 0;
+
+  /**
+   * The scale of an element of doubles whose text is in texts.
+   */
+  static final byte SCALE_TEXT = -1;
+
+  /**
+   * The powers of ten that fit in a long.
+   */
+  static final long[] TENS = {
+      1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L,
+      1000000000L, 10000000000L, 100000000000L, 1000000000000L, 10000000000000L,
+      100000000000000L, 1000000000000000L, 10000000000000000L, 100000000000000000L,
+      1000000000000000000L};
+
   // +--------+------------------------------------------------------
   // | Fields |
   // +--------+
 
   /**
-   * The underlying array.
+   * The underlying array, or null if the elements are in longs or doubles.
    */
   ArrayList<JSONValue> values;
 
+  /**
+   * The elements, if they are all integers stored as longs; otherwise null.
+   */
+  long[] longs;
+
+  /**
+   * The elements, if they are numbers stored as doubles; otherwise null.
+   */
+  double[] doubles;
+
+  /**
+   * How to write each element of doubles: SCALE_INTEGER, the number of
+   * digits after the point (see JSONReal.plainScale), or SCALE_TEXT.
+   */
+  byte[] scales;
+
+  /**
+   * The text of the elements of doubles whose scale is SCALE_TEXT, at
+   * the same index, or null if there are none yet. The other slots stay
+   * null.
+   */
+  String[] texts;
+
+  /**
+   * The number of elements in longs or doubles.
+   */
+  int size;
+
+  /**
+   * If the array has not been parsed yet, a lexer for its part of the
+   * input; otherwise null. It is volatile so that once a thread sees
+   * null, it also sees the contents that were parsed.
+   */
+  volatile JSONLexer lazy;
+
   // +--------------+------------------------------------------------
   // | Constructors |
   // +--------------+
@@ -30,6 +108,15 @@ public class JSONArray implements JSONValue {
     this.values = new ArrayList<JSONValue>();
   } // JSONArray() 
 
+  /**
+   * Build an array whose elements will be parsed from source when they
+   * are first needed.
+   */
+  JSONArray(JSONLexer source) {
+    this.values = new ArrayList<JSONValue>();
+    this.lazy = source;
+  } // JSONArray(JSONLexer)
+
   // +-------------------------+-------------------------------------
   // | Standard object methods |
   // +-------------------------+
@@ -38,7 +125,22 @@ public class JSONArray implements JSONValue {
    * Convert to a string (e.g., for printing).
    */
   public String toString() {
-    return this.values.toString();
+    materialize();
+    if (this.values != null) {
+      return this.values.toString();
+    } // if
+    StringBuilder ret = new StringBuilder("[");
+    for (int i = 0; i < this.size; i++) {
+      if (i > 0) {
+        ret.append(", ");
+      } // if
+      if (this.longs != null) {
+        ret.append(this.longs[i]);
+      } else {
+        ret.append(this.get(i));
+      } // if
+    } // for
+    return ret.append("]").toString();
   } // toString()
 
   /**
@@ -46,16 +148,42 @@ public class JSONArray implements JSONValue {
    */
   public boolean equals(Object other) {
     if (other instanceof JSONArray) {
-      return this.values.equals(((JSONArray) other).values);
+      JSONArray array = (JSONArray) other;
+      this.materialize();
+      array.materialize();
+      if ((this.values != null) && (array.values != null)) {
+        return this.values.equals(array.values);
+      } else if ((this.longs != null) && (array.longs != null)) {
+        return Arrays.equals(this.longs, 0, this.size, array.longs, 0, array.size);
+      } // if
+      int size = this.size();
+      if (size != array.size()) {
+        return false;
+      } // if
+      for (int i = 0; i < size; i++) {
+        if (!this.get(i).equals(array.get(i))) {
+          return false;
+        } // if
+      } // for
+      return true;
     } // if
     return false;
   } // equals(Object)
 
   /**
-   * Compute the hash code.
+   * Compute the hash code. This is the same whichever way the elements
+   * are stored.
    */
   public int hashCode() {
-    return this.values.hashCode();
+    materialize();
+    if (this.values != null) {
+      return this.values.hashCode();
+    } // if
+    int result = 1;
+    for (int i = 0; i < this.size; i++) {
+      result = 31 * result + this.get(i).hashCode();
+    } // for
+    return result;
   } // hashCode()
 
   // +--------------------+------------------------------------------
@@ -66,14 +194,16 @@ public class JSONArray implements JSONValue {
    * Write the value as JSON.
    */
   public void writeJSON(PrintWriter pen) {
-    pen.print(this.values.toString());
-    pen.flush();
+    JSONWriter.writeJSON(this, pen);
   } // writeJSON(PrintWriter)
 
   /**
-   * Get the underlying value.
+   * Get the underlying value. If the elements are stored as longs or
+   * doubles, this turns them into an ordinary list first.
    */
   public ArrayList<JSONValue> getValue() {
+    materialize();
+    generalize();
     return this.values;
   } // getValue()
 
@@ -85,34 +215,307 @@ public class JSONArray implements JSONValue {
    * Add a value to the end of the array.
    */
   public void add(JSONValue value) {
-    this.values.add(value);
+    materialize();
+    if ((this.longs != null) && isLong(value)) {
+      addLong(((JSONInteger) value).value);
+    } else {
+      generalize();
+      this.values.add(value);
+    } // if
   } // add(JSONValue)
 
   /**
    * Get the value at a particular index.
    */
   public JSONValue get(int index) throws IndexOutOfBoundsException {
-    return this.values.get(index);
+    materialize();
+    if (this.values != null) {
+      return this.values.get(index);
+    } // if
+    if ((index < 0) || (index >= this.size)) {
+      throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length "
+          + this.size);
+    } // if
+    if (this.longs != null) {
+      return JSONInteger.valueOf(this.longs[index]);
+    } // if
+    double value = this.doubles[index];
+    byte scale = this.scales[index];
+    if (scale == SCALE_INTEGER) {
+      return JSONInteger.valueOf((long) value);
+    } else if (scale == SCALE_TEXT) {
+      return new JSONReal(value, this.texts[index]);
+    } // if
+    StringBuilder text = new StringBuilder(24);
+    if (isNegative(index)) {
+      text.append('-');
+    } // if
+    long significand = significand(index);
+    long unit = TENS[scale];
+    text.append(significand / unit).append('.');
+    String fraction = Long.toString(unit + significand % unit);
+    return new JSONReal(value, text.append(fraction, 1, fraction.length()).toString());
   } // get(int)
 
   /**
    * Get the iterator for the elements.
    */
   public Iterator<JSONValue> iterator() {
-    return this.values.iterator();
+    materialize();
+    if (this.values != null) {
+      return this.values.iterator();
+    } // if
+    return new Iterator<JSONValue>() {
+
+      // The index of the next element.
+      int next = 0;
+
+      public boolean hasNext() {
+        return this.next < size();
+      } // hasNext()
+
+      public JSONValue next() throws NoSuchElementException {
+        if (!this.hasNext()) {
+          throw new NoSuchElementException();
+        } // if
+        return get(this.next++);
+      } // next()
+
+    }; // new Iterator
   } // iterator()
 
   /**
    * Set the value at a particular index.
    */
   public void set(int index, JSONValue value) throws IndexOutOfBoundsException {
-    this.values.set(index, value);
+    materialize();
+    if ((this.longs != null) && isLong(value) && (index >= 0) && (index < this.size)) {
+      this.longs[index] = ((JSONInteger) value).value;
+    } else {
+      generalize();
+      this.values.set(index, value);
+    } // if
   } // set(int, JSONValue)
 
   /**
    * Determine how many values are in the array.
    */
   public int size() {
-    return this.values.size();
+    materialize();
+    if (this.values != null) {
+      return this.values.size();
+    } // if
+    return this.size;
   } // size()
+
+  /**
+   * Get the elements, which must all be integers that fit in a long, as
+   * an array of longs.
+   */
+  public long[] toLongArray() {
+    materialize();
+    if (this.longs != null) {
+      return Arrays.copyOf(this.longs, this.size);
+    } // if
+    int size = this.size();
+    long[] result = new long[size];
+    for (int i = 0; i < size; i++) {
+      JSONValue value = this.get(i);
+      if (!(value instanceof JSONInteger)) {
+        throw new ClassCastException("Not an integer: " + value);
+      } // if
+      result[i] = ((JSONInteger) value).longValue();
+    } // for
+    return result;
+  } // toLongArray()
+
+  /**
+   * Get the elements, which must all be numbers, as an array of doubles.
+   */
+  public double[] toDoubleArray() {
+    materialize();
+    if (this.doubles != null) {
+      return Arrays.copyOf(this.doubles, this.size);
+    } // if
+    int size = this.size();
+    double[] result = new double[size];
+    for (int i = 0; i < size; i++) {
+      if (this.longs != null) {
+        result[i] = this.longs[i];
+        continue;
+      } // if
+      JSONValue value = this.values.get(i);
+      if (value instanceof JSONReal) {
+        result[i] = ((JSONReal) value).doubleValue();
+      } else if (value instanceof JSONInteger) {
+        result[i] = ((JSONInteger) value).getValue().doubleValue();
+      } else {
+        throw new ClassCastException("Not a number: " + value);
+      } // if
+    } // for
+    return result;
+  } // toDoubleArray()
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Add an integer to the end of an array that the parser is building.
+   * Returns false (and adds nothing) if the array holds anything but
+   * numbers, or if it holds doubles and they can't hold this one.
+   */
+  boolean addLong(long value) {
+    if (this.doubles != null) {
+      if (Math.abs(value) > JSONReal.MAX_EXACT) {
+        return false;
+      } // if
+      reserve();
+      this.doubles[this.size] = value;
+      this.scales[this.size++] = SCALE_INTEGER;
+      return true;
+    } else if (this.longs == null) {
+      if ((this.values == null) || !this.values.isEmpty()) {
+        return false;
+      } // if
+      this.longs = new long[INITIAL_CAPACITY];
+      this.values = null;
+    } // if
+    reserve();
+    this.longs[this.size++] = value;
+    return true;
+  } // addLong(long)
+
+  /**
+   * Add a real, read from digits, to the end of an array that the
+   * parser is building. Returns false (and adds nothing) if the array
+   * holds anything but numbers, or integers that doubles can't hold.
+   */
+  boolean addDouble(double value, String digits) {
+    if ((this.doubles == null) && !floatLongs()) {
+      return false;
+    } // if
+    reserve();
+    int scale = JSONReal.plainScale(digits);
+    if (scale < 0) {
+      if (this.texts == null) {
+        this.texts = new String[this.doubles.length];
+      } // if
+      this.texts[this.size] = digits;
+    } // if
+    this.doubles[this.size] = value;
+    this.scales[this.size++] = (byte) scale;
+    return true;
+  } // addDouble(double, String)
+
+  /**
+   * Make sure an array of longs or doubles has room for one more element.
+   */
+  void reserve() {
+    if (this.longs != null) {
+      if (this.size == this.longs.length) {
+        this.longs = Arrays.copyOf(this.longs, 2 * this.size);
+      } // if
+    } else if (this.size == this.doubles.length) {
+      this.doubles = Arrays.copyOf(this.doubles, 2 * this.size);
+      this.scales = Arrays.copyOf(this.scales, 2 * this.size);
+      if (this.texts != null) {
+        this.texts = Arrays.copyOf(this.texts, 2 * this.size);
+      } // if
+    } // if
+  } // reserve()
+
+  /**
+   * Switch an empty array, or one of longs that doubles hold exactly,
+   * to doubles, with room for one more element. Returns false (and
+   * changes nothing) if we can't.
+   */
+  boolean floatLongs() {
+    if (this.longs != null) {
+      for (int i = 0; i < this.size; i++) {
+        if (Math.abs(this.longs[i]) > JSONReal.MAX_EXACT) {
+          return false;
+        } // if
+      } // for
+    } else if ((this.values == null) || !this.values.isEmpty()) {
+      return false;
+    } // if
+    int capacity = Math.max(INITIAL_CAPACITY, 2 * this.size);
+    this.doubles = new double[capacity];
+    this.scales = new byte[capacity];
+    for (int i = 0; i < this.size; i++) {
+      // The scales are already SCALE_INTEGER.
+      this.doubles[i] = this.longs[i];
+    } // for
+    this.longs = null;
+    this.values = null;
+    return true;
+  } // floatLongs()
+
+  /**
+   * Get the digits of element index of doubles, which is written
+   * plainly with scales[index] digits after the point, as a whole
+   * number.
+   */
+  long significand(int index) {
+    double magnitude = Math.abs(this.doubles[index]);
+    return Math.round(magnitude * JSONReal.POWERS_OF_TEN[this.scales[index]]);
+  } // significand(int)
+
+  /**
+   * Determine if element index of doubles is negative (including -0.0).
+   */
+  boolean isNegative(int index) {
+    return Math.copySign(1.0, this.doubles[index]) < 0;
+  } // isNegative(int)
+
+  /**
+   * Make sure the elements are stored as an ordinary list.
+   */
+  void generalize() {
+    if (this.values != null) {
+      return;
+    } // if
+    ArrayList<JSONValue> list = new ArrayList<JSONValue>(Math.max(INITIAL_CAPACITY, this.size + 1));
+    for (int i = 0; i < this.size; i++) {
+      list.add(this.get(i));
+    } // for
+    this.values = list;
+    this.longs = null;
+    this.doubles = null;
+    this.scales = null;
+    this.texts = null;
+    this.size = 0;
+  } // generalize()
+
+  /**
+   * Determine if a value is an integer that fits in a long.
+   */
+  static boolean isLong(JSONValue value) {
+    return (value instanceof JSONInteger) && ((JSONInteger) value).isLong();
+  } // isLong(JSONValue)
+
+  /**
+   * Parse the elements of a lazy array. Safe to call from several
+   * threads at once.
+   */
+  void materialize() {
+    if (this.lazy != null) {
+      synchronized (this) {
+        if (this.lazy != null) {
+          // Fill a separate array and only then take over its contents, so
+          // that other threads never see us partly filled.
+          JSONArray contents = new JSONArray();
+          JSONParser.materialize(this.lazy, contents);
+          this.values = contents.values;
+          this.longs = contents.longs;
+          this.doubles = contents.doubles;
+          this.scales = contents.scales;
+          this.texts = contents.texts;
+          this.size = contents.size;
+          this.lazy = null;
+        } // if
+      } // synchronized
+    } // if
+  } // materialize()
 } // class JSONArray
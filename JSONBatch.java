@@ -0,0 +1,166 @@
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Parsing many files at once. Each file is read and parsed as its own
+ * task, and at most a fixed number of files are open at any time. When
+ * the runtime has virtual threads, every file gets one (so a task that
+ * waits on the disk does not hold up a platform thread); otherwise the
+ * tasks share a pool with one thread per open file.
+ *
+ * @author Marina Ananias
+ * @author Linda Jing
+ * @author Keely Miyamoto
+ */
+public class JSONBatch {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * How many files we parse at once unless told otherwise.
+   */
+  public static final int DEFAULT_CONCURRENCY = 64;
+
+  /**
+   * Files smaller than this many bytes are read into an array rather
+   * than mapped, since mapping costs more than it saves on small files.
+   */
+  static final long MAP_THRESHOLD = 1 << 16;
+
+  // +----------------+----------------------------------------------
+  // | Static methods |
+  // +----------------+
+
+  /**
+   * Parse UTF-8 files, at most concurrency of them at a time. The
+   * result holds one future per file, in the order of files. A future
+   * that fails has the file's ParseException or IOException as its
+   * cause; the other files are parsed regardless.
+   */
+  public static List<CompletableFuture<JSONValue>> parseAll(Collection<Path> files,
+      int concurrency) {
+    if (concurrency < 1) {
+      throw new IllegalArgumentException("Invalid concurrency: " + concurrency);
+    } // if
+    ExecutorService executor = virtualThreads();
+    Semaphore permits = null;
+    if (executor == null) {
+      executor = Executors.newFixedThreadPool(concurrency, (task) -> {
+        Thread thread = new Thread(task, "JSONBatch");
+        thread.setDaemon(true);
+        return thread;
+      });
+    } else {
+      permits = new Semaphore(concurrency);
+    } // if
+    List<CompletableFuture<JSONValue>> results =
+        new ArrayList<CompletableFuture<JSONValue>>(files.size());
+    try {
+      for (Path file : files) {
+        CompletableFuture<JSONValue> result = new CompletableFuture<JSONValue>();
+        executor.execute(new FileTask(file, permits, result));
+        results.add(result);
+      } // for
+    } finally {
+      // Lets the tasks we have submitted finish, then frees the threads.
+      executor.shutdown();
+    } // try
+    return results;
+  } // parseAll(Collection<Path>, int)
+
+  /**
+   * Parse one file, reading small ones into memory and mapping the rest.
+   */
+  static JSONValue parseOne(Path file) throws ParseException, IOException {
+    if (Files.size(file) < MAP_THRESHOLD) {
+      return JSON.parse(Files.readAllBytes(file));
+    } // if
+    return JSON.parseFile(file);
+  } // parseOne(Path)
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Get an executor that starts a virtual thread per task, or null if
+   * this runtime does not have them. We look the factory up
+   * reflectively so that we still run on older runtimes. (Where they
+   * are a preview feature that is not enabled, the factory throws, and
+   * invoke wraps that in an InvocationTargetException.)
+   */
+  static ExecutorService virtualThreads() {
+    try {
+      Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) factory.invoke(null);
+    } catch (ReflectiveOperationException e) {
+      return null;
+    } // try
+  } // virtualThreads()
+
+  // +---------------+-----------------------------------------------
+  // | Inner classes |
+  // +---------------+
+
+  /**
+   * A task that parses one file and completes a future with the result.
+   */
+  static class FileTask implements Runnable {
+    /**
+     * The file to parse.
+     */
+    Path file;
+
+    /**
+     * The permits that bound how many files are open, or null if the
+     * executor bounds that itself.
+     */
+    Semaphore permits;
+
+    /**
+     * Where the result goes.
+     */
+    CompletableFuture<JSONValue> result;
+
+    /**
+     * Build a task that parses file into result.
+     */
+    FileTask(Path file, Semaphore permits, CompletableFuture<JSONValue> result) {
+      this.file = file;
+      this.permits = permits;
+      this.result = result;
+    } // FileTask(Path, Semaphore, CompletableFuture<JSONValue>)
+
+    /**
+     * Parse the file.
+     */
+    public void run() {
+      try {
+        if (this.permits != null) {
+          this.permits.acquire();
+        } // if
+        try {
+          this.result.complete(parseOne(this.file));
+        } finally {
+          if (this.permits != null) {
+            this.permits.release();
+          } // if
+        } // try
+      } catch (Throwable e) {
+        this.result.completeExceptionally(e);
+      } // try
+    } // run()
+  } // class FileTask
+
+} // class JSONBatch
@@ -0,0 +1,1364 @@
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.RecordComponent;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Binds JSON to ordinary Java objects: records, classes with a no-
+ * argument constructor (whose non-static, non-transient fields become
+ * the keys), strings, numbers, booleans, enums, arrays, collections,
+ * maps with string keys, and JSONValues. Objects are read straight
+ * from a JSONReader and written straight to a JSONWriter, without
+ * building a tree in between.
+ *
+ * The first time a class is bound we build a codec for it, with method
+ * handles for its constructor and fields, and keep it for next time.
+ * Primitive fields travel through the handles as primitives, so they
+ * are never boxed.
+ *
+ * @author Marina Ananias
+ * @author Linda Jing
+ * @author Keely Miyamoto
+ */
+public class JSONBinder {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * Property kind: a byte, short, int, or long, stored as a long.
+   */
+  static final int LONG = 0;
+
+  /**
+   * Property kind: a float or double, stored as a double.
+   */
+  static final int DOUBLE = 1;
+
+  /**
+   * Property kind: a boolean, stored as a long (0 or 1).
+   */
+  static final int BOOLEAN = 2;
+
+  /**
+   * Property kind: anything else, handled by a codec.
+   */
+  static final int REF = 3;
+
+  /**
+   * The codec for each class, built when the class is first bound.
+   */
+  static final ClassValue<Codec> CODECS = new ClassValue<Codec>() {
+    protected Codec computeValue(Class<?> type) {
+      return makeCodec(type);
+    } // computeValue(Class<?>)
+  }; // new ClassValue
+
+  // +----------------+----------------------------------------------
+  // | Static methods |
+  // +----------------+
+
+  /**
+   * Read the next value from a reader as an object of a given type.
+   */
+  public static <T> T read(JSONReader reader, Class<T> type) throws ParseException, IOException {
+    @SuppressWarnings("unchecked")
+    T result = (T) read(reader, (Type) type);
+    return result;
+  } // read(JSONReader, Class<T>)
+
+  /**
+   * Read the next value from a reader as an object of a given type,
+   * which may be generic (such as List&lt;Point&gt;).
+   */
+  public static Object read(JSONReader reader, Type type) throws ParseException, IOException {
+    return codecFor(type).read(reader, reader.nextToken());
+  } // read(JSONReader, Type)
+
+  /**
+   * Write an object as JSON.
+   */
+  public static void write(Object value, JSONWriter writer) throws IOException {
+    if (value == null) {
+      writer.append("null");
+    } else {
+      CODECS.get(value.getClass()).write(value, writer);
+    } // if
+  } // write(Object, JSONWriter)
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Get the codec for a possibly generic type.
+   */
+  static Codec codecFor(Type type) {
+    if (type instanceof Class) {
+      return CODECS.get((Class<?>) type);
+    } else if (type instanceof ParameterizedType) {
+      Class<?> raw = (Class<?>) ((ParameterizedType) type).getRawType();
+      if (Map.class.isAssignableFrom(raw)) {
+        return new MapCodec(raw, codecFor(typeArgument(type, 1)));
+      } else if (Collection.class.isAssignableFrom(raw)) {
+        return new CollectionCodec(raw, codecFor(typeArgument(type, 0)));
+      } // if
+      return CODECS.get(raw);
+    } else if (type instanceof GenericArrayType) {
+      Type component = ((GenericArrayType) type).getGenericComponentType();
+      return new ArrayCodec(rawClass(component), codecFor(component));
+    } // if
+    return codecFor(rawClass(type));
+  } // codecFor(Type)
+
+  /**
+   * Build the codec for a class.
+   */
+  static Codec makeCodec(Class<?> type) {
+    if ((type == String.class) || (type == CharSequence.class)) {
+      return new StringCodec();
+    } else if ((type == Object.class) || (type == Number.class)) {
+      return new NaturalCodec();
+    } else if (JSONValue.class.isAssignableFrom(type)) {
+      return new ValueCodec(type);
+    } else if ((type == boolean.class) || (type == Boolean.class)) {
+      return new BooleanCodec(type);
+    } else if ((type == char.class) || (type == Character.class)) {
+      return new CharCodec(type);
+    } else if ((type == long.class) || (type == Long.class)) {
+      return new IntegralCodec(type, Long.MIN_VALUE, Long.MAX_VALUE);
+    } else if ((type == int.class) || (type == Integer.class)) {
+      return new IntegralCodec(type, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    } else if ((type == short.class) || (type == Short.class)) {
+      return new IntegralCodec(type, Short.MIN_VALUE, Short.MAX_VALUE);
+    } else if ((type == byte.class) || (type == Byte.class)) {
+      return new IntegralCodec(type, Byte.MIN_VALUE, Byte.MAX_VALUE);
+    } else if ((type == double.class) || (type == Double.class)
+        || (type == float.class) || (type == Float.class)) {
+      return new DoubleCodec(type);
+    } else if (type == BigInteger.class) {
+      return new BigIntegerCodec();
+    } else if (type == BigDecimal.class) {
+      return new BigDecimalCodec();
+    } else if (Enum.class.isAssignableFrom(type)) {
+      Class<?> enumType = type;
+      while (!enumType.isEnum()) {
+        enumType = enumType.getSuperclass();
+      } // while
+      return (enumType == type) ? new EnumCodec(type) : CODECS.get(enumType);
+    } else if (type == long[].class) {
+      return new LongArrayCodec();
+    } else if (type == int[].class) {
+      return new IntArrayCodec();
+    } else if (type == double[].class) {
+      return new DoubleArrayCodec();
+    } else if (type.isArray()) {
+      return new ArrayCodec(type.getComponentType(), CODECS.get(type.getComponentType()));
+    } else if (Map.class.isAssignableFrom(type)) {
+      return new MapCodec(type, CODECS.get(Object.class));
+    } else if (Collection.class.isAssignableFrom(type)) {
+      return new CollectionCodec(type, CODECS.get(Object.class));
+    } else if (type.isPrimitive() || type.isInterface()
+        || Modifier.isAbstract(type.getModifiers())) {
+      throw new IllegalArgumentException("Cannot bind JSON to " + type.getName());
+    } // if
+    return new ObjectCodec(type);
+  } // makeCodec(Class<?>)
+
+  /**
+   * Get the index'th type argument of a parameterized type, or Object
+   * if there is none.
+   */
+  static Type typeArgument(Type type, int index) {
+    if (type instanceof ParameterizedType) {
+      Type[] arguments = ((ParameterizedType) type).getActualTypeArguments();
+      if (index < arguments.length) {
+        return arguments[index];
+      } // if
+    } // if
+    return Object.class;
+  } // typeArgument(Type, int)
+
+  /**
+   * Get the class that values of a type belong to.
+   */
+  static Class<?> rawClass(Type type) {
+    if (type instanceof Class) {
+      return (Class<?>) type;
+    } else if (type instanceof ParameterizedType) {
+      return (Class<?>) ((ParameterizedType) type).getRawType();
+    } else if (type instanceof GenericArrayType) {
+      Class<?> component = rawClass(((GenericArrayType) type).getGenericComponentType());
+      return Array.newInstance(component, 0).getClass();
+    } else if (type instanceof WildcardType) {
+      return rawClass(((WildcardType) type).getUpperBounds()[0]);
+    } else if (type instanceof TypeVariable) {
+      return rawClass(((TypeVariable<?>) type).getBounds()[0]);
+    } // if
+    return Object.class;
+  } // rawClass(Type)
+
+  /**
+   * Determine the property kind for a type.
+   */
+  static int kindOf(Class<?> type) {
+    if ((type == long.class) || (type == int.class)
+        || (type == short.class) || (type == byte.class)) {
+      return LONG;
+    } else if ((type == double.class) || (type == float.class)) {
+      return DOUBLE;
+    } else if (type == boolean.class) {
+      return BOOLEAN;
+    } // if
+    return REF;
+  } // kindOf(Class<?>)
+
+  /**
+   * Get the class that stores the values of a property kind.
+   */
+  static Class<?> slotClass(int kind) {
+    switch (kind) {
+      case LONG:
+      case BOOLEAN:
+        return long.class;
+      case DOUBLE:
+        return double.class;
+      default:
+        return Object.class;
+    } // switch
+  } // slotClass(int)
+
+  /**
+   * Read an integer token as a long in [min..max].
+   */
+  static long readLong(JSONReader reader, JSONToken token, long min, long max)
+      throws ParseException {
+    if ((token != JSONToken.INTEGER) && (token != JSONToken.REAL)) {
+      throw mismatch(reader, token, "an integer");
+    } // if
+    long value;
+    try {
+      value = reader.getLong();
+    } catch (ArithmeticException e) {
+      throw new ParseException("Not an integer in range", reader.position());
+    } // try
+    if ((value < min) || (value > max)) {
+      throw new ParseException("Integer out of range: " + value, reader.position());
+    } // if
+    return value;
+  } // readLong(JSONReader, JSONToken, long, long)
+
+  /**
+   * Read a number token as a double.
+   */
+  static double readDouble(JSONReader reader, JSONToken token) throws ParseException {
+    if ((token != JSONToken.INTEGER) && (token != JSONToken.REAL)) {
+      throw mismatch(reader, token, "a number");
+    } // if
+    return reader.getDouble();
+  } // readDouble(JSONReader, JSONToken)
+
+  /**
+   * Read a true or false token.
+   */
+  static boolean readBoolean(JSONReader reader, JSONToken token) throws ParseException {
+    if (token == JSONToken.TRUE) {
+      return true;
+    } else if (token == JSONToken.FALSE) {
+      return false;
+    } // if
+    throw mismatch(reader, token, "true or false");
+  } // readBoolean(JSONReader, JSONToken)
+
+  /**
+   * Write a double, which must be finite.
+   */
+  static void writeDouble(double value, JSONWriter writer) throws IOException {
+    if (Double.isNaN(value) || Double.isInfinite(value)) {
+      throw new IllegalArgumentException("JSON has no " + value);
+    } // if
+    writer.append(Double.toString(value));
+  } // writeDouble(double, JSONWriter)
+
+  /**
+   * Build the exception for finding the wrong kind of token.
+   */
+  static ParseException mismatch(JSONReader reader, JSONToken token, String expected) {
+    return new ParseException("Expected " + expected + " but found " + token,
+        reader.position());
+  } // mismatch(JSONReader, JSONToken, String)
+
+  /**
+   * Pass along what a method handle threw.
+   */
+  static RuntimeException rethrow(Throwable thrown) throws ParseException, IOException {
+    if (thrown instanceof ParseException) {
+      throw (ParseException) thrown;
+    } else if (thrown instanceof IOException) {
+      throw (IOException) thrown;
+    } else if (thrown instanceof RuntimeException) {
+      throw (RuntimeException) thrown;
+    } else if (thrown instanceof Error) {
+      throw (Error) thrown;
+    } // if
+    return new IllegalStateException(thrown);
+  } // rethrow(Throwable)
+
+  // +---------------+-----------------------------------------------
+  // | Inner classes |
+  // +---------------+
+
+  /**
+   * Reads and writes the values of one type.
+   */
+  abstract static class Codec {
+    /**
+     * Read the value that starts with a token we have just read.
+     */
+    abstract Object read(JSONReader reader, JSONToken token) throws ParseException, IOException;
+
+    /**
+     * Write a (non-null) value.
+     */
+    abstract void write(Object value, JSONWriter writer) throws IOException;
+  } // class Codec
+
+  /**
+   * Strings.
+   */
+  static class StringCodec extends Codec {
+    Object read(JSONReader reader, JSONToken token) throws ParseException {
+      if (token == JSONToken.NULL) {
+        return null;
+      } else if (token != JSONToken.STRING) {
+        throw mismatch(reader, token, "a string");
+      } // if
+      return reader.getString();
+    } // read(JSONReader, JSONToken)
+
+    void write(Object value, JSONWriter writer) throws IOException {
+      writer.writeString(value.toString());
+    } // write(Object, JSONWriter)
+  } // class StringCodec
+
+  /**
+   * Characters, as strings of length one.
+   */
+  static class CharCodec extends Codec {
+    /**
+     * char or Character.
+     */
+    Class<?> type;
+
+    /**
+     * Build a codec for char or Character.
+     */
+    CharCodec(Class<?> type) {
+      this.type = type;
+    } // CharCodec(Class<?>)
+
+    Object read(JSONReader reader, JSONToken token) throws ParseException {
+      if ((token == JSONToken.NULL) && !this.type.isPrimitive()) {
+        return null;
+      } else if ((token != JSONToken.STRING) || (reader.getString().length() != 1)) {
+        throw mismatch(reader, token, "a single character");
+      } // if
+      return reader.getString().charAt(0);
+    } // read(JSONReader, JSONToken)
+
+    void write(Object value, JSONWriter writer) throws IOException {
+      writer.writeString(value.toString());
+    } // write(Object, JSONWriter)
+  } // class CharCodec
+
+  /**
+   * Booleans.
+   */
+  static class BooleanCodec extends Codec {
+    /**
+     * boolean or Boolean.
+     */
+    Class<?> type;
+
+    /**
+     * Build a codec for boolean or Boolean.
+     */
+    BooleanCodec(Class<?> type) {
+      this.type = type;
+    } // BooleanCodec(Class<?>)
+
+    Object read(JSONReader reader, JSONToken token) throws ParseException {
+      if ((token == JSONToken.NULL) && !this.type.isPrimitive()) {
+        return null;
+      } // if
+      return readBoolean(reader, token);
+    } // read(JSONReader, JSONToken)
+
+    void write(Object value, JSONWriter writer) throws IOException {
+      writer.append(((Boolean) value) ? "true" : "false");
+    } // write(Object, JSONWriter)
+  } // class BooleanCodec
+
+  /**
+   * Longs, ints, shorts, and bytes.
+   */
+  static class IntegralCodec extends Codec {
+    /**
+     * The primitive or boxed type we read.
+     */
+    Class<?> type;
+
+    /**
+     * The smallest value the type can hold.
+     */
+    long min;
+
+    /**
+     * The largest value the type can hold.
+     */
+    long max;
+
+    /**
+     * Build a codec for a type that holds values in [min..max].
+     */
+    IntegralCodec(Class<?> type, long min, long max) {
+      this.type = type;
+      this.min = min;
+      this.max = max;
+    } // IntegralCodec(Class<?>, long, long)
+
+    Object read(JSONReader reader, JSONToken token) throws ParseException {
+      if ((token == JSONToken.NULL) && !this.type.isPrimitive()) {
+        return null;
+      } // if
+      long value = readLong(reader, token, this.min, this.max);
+      if ((this.type == long.class) || (this.type == Long.class)) {
+        return value;
+      } else if ((this.type == int.class) || (this.type == Integer.class)) {
+        return (int) value;
+      } else if ((this.type == short.class) || (this.type == Short.class)) {
+        return (short) value;
+      } // if
+      return (byte) value;
+    } // read(JSONReader, JSONToken)
+
+    void write(Object value, JSONWriter writer) throws IOException {
+      writer.writeLong(((Number) value).longValue());
+    } // write(Object, JSONWriter)
+  } // class IntegralCodec
+
+  /**
+   * Doubles and floats.
+   */
+  static class DoubleCodec extends Codec {
+    /**
+     * double, Double, float, or Float.
+     */
+    Class<?> type;
+
+    /**
+     * Build a codec for double, Double, float, or Float.
+     */
+    DoubleCodec(Class<?> type) {
+      this.type = type;
+    } // DoubleCodec(Class<?>)
+
+    Object read(JSONReader reader, JSONToken token) throws ParseException {
+      if ((token == JSONToken.NULL) && !this.type.isPrimitive()) {
+        return null;
+      } // if
+      double value = readDouble(reader, token);
+      if ((this.type == float.class) || (this.type == Float.class)) {
+        return (float) value;
+      } // if
+      return value;
+    } // read(JSONReader, JSONToken)
+
+    void write(Object value, JSONWriter writer) throws IOException {
+      writeDouble(((Number) value).doubleValue(), writer);
+    } // write(Object, JSONWriter)
+  } // class DoubleCodec
+
+  /**
+   * BigIntegers.
+   */
+  static class BigIntegerCodec extends Codec {
+    Object read(JSONReader reader, JSONToken token) throws ParseException {
+      if (token == JSONToken.NULL) {
+        return null;
+      } else if ((token != JSONToken.INTEGER) && (token != JSONToken.REAL)) {
+        throw mismatch(reader, token, "an integer");
+      } // if
+      try {
+        return reader.getBigInteger();
+      } catch (ArithmeticException e) {
+        throw new ParseException("Not an integer", reader.position());
+      } // try
+    } // read(JSONReader, JSONToken)
+
+    void write(Object value, JSONWriter writer) throws IOException {
+      writer.append(value.toString());
+    } // write(Object, JSONWriter)
+  } // class BigIntegerCodec
+
+  /**
+   * BigDecimals.
+   */
+  static class BigDecimalCodec extends Codec {
+    Object read(JSONReader reader, JSONToken token) throws ParseException {
+      if (token == JSONToken.NULL) {
+        return null;
+      } else if ((token != JSONToken.INTEGER) && (token != JSONToken.REAL)) {
+        throw mismatch(reader, token, "a number");
+      } // if
+      return reader.getBigDecimal();
+    } // read(JSONReader, JSONToken)
+
+    void write(Object value, JSONWriter writer) throws IOException {
+      writer.append(value.toString());
+    } // write(Object, JSONWriter)
+  } // class BigDecimalCodec
+
+  /**
+   * Enums, by name.
+   */
+  static class EnumCodec extends Codec {
+    /**
+     * The constants of the enum, by name.
+     */
+    Map<String, Object> constants;
+
+    /**
+     * Build a codec for an enum class.
+     */
+    EnumCodec(Class<?> type) {
+      this.constants = new HashMap<String, Object>();
+      for (Object constant : type.getEnumConstants()) {
+        this.constants.put(((Enum<?>) constant).name(), constant);
+      } // for
+    } // EnumCodec(Class<?>)
+
+    Object read(JSONReader reader, JSONToken token) throws ParseException {
+      if (token == JSONToken.NULL) {
+        return null;
+      } else if (token != JSONToken.STRING) {
+        throw mismatch(reader, token, "a string");
+      } // if
+      Object result = this.constants.get(reader.getString());
+      if (result == null) {
+        throw new ParseException("Unknown constant: " + reader.getString(), reader.position());
+      } // if
+      return result;
+    } // read(JSONReader, JSONToken)
+
+    void write(Object value, JSONWriter writer) throws IOException {
+      writer.writeString(((Enum<?>) value).name());
+    } // write(Object, JSONWriter)
+  } // class EnumCodec
+
+  /**
+   * JSONValues, which are parsed as usual.
+   */
+  static class ValueCodec extends Codec {
+    /**
+     * JSONValue or one of its subclasses.
+     */
+    Class<?> type;
+
+    /**
+     * Build a codec for JSONValue or one of its subclasses.
+     */
+    ValueCodec(Class<?> type) {
+      this.type = type;
+    } // ValueCodec(Class<?>)
+
+    Object read(JSONReader reader, JSONToken token) throws ParseException, IOException {
+      JSONValue value = new JSONParser(reader).parseValue(token);
+      if (!this.type.isInstance(value)) {
+        throw mismatch(reader, token, "a " + this.type.getSimpleName());
+      } // if
+      return value;
+    } // read(JSONReader, JSONToken)
+
+    void write(Object value, JSONWriter writer) throws IOException {
+      writer.write((JSONValue) value);
+    } // write(Object, JSONWriter)
+  } // class ValueCodec
+
+  /**
+   * Values of unknown type. We read hashes as maps, arrays as lists,
+   * integers as Longs (or BigIntegers), and reals as Doubles, and write
+   * whatever we are given according to its class.
+   */
+  static class NaturalCodec extends Codec {
+    Object read(JSONReader reader, JSONToken token) throws ParseException, IOException {
+      switch (token) {
+        case START_HASH:
+          Map<String, Object> map = new LinkedHashMap<String, Object>();
+          while (reader.nextToken() != JSONToken.END_HASH) {
+            String key = reader.getString();
+            map.put(key, read(reader, reader.nextToken()));
+          } // while
+          return map;
+        case START_ARRAY:
+          List<Object> list = new ArrayList<Object>();
+          JSONToken next;
+          while ((next = reader.nextToken()) != JSONToken.END_ARRAY) {
+            list.add(read(reader, next));
+          } // while
+          return list;
+        case STRING:
+          return reader.getString();
+        case INTEGER:
+          return reader.isLong() ? (Object) reader.getLong() : (Object) reader.getBigInteger();
+        case REAL:
+          return reader.getDouble();
+        case TRUE:
+          return Boolean.TRUE;
+        case FALSE:
+          return Boolean.FALSE;
+        case NULL:
+          return null;
+        default:
+          throw mismatch(reader, token, "a value");
+      } // switch
+    } // read(JSONReader, JSONToken)
+
+    void write(Object value, JSONWriter writer) throws IOException {
+      if (value.getClass() == Object.class) {
+        writer.append("{}");
+      } else {
+        JSONBinder.write(value, writer);
+      } // if
+    } // write(Object, JSONWriter)
+  } // class NaturalCodec
+
+  /**
+   * Arrays of longs.
+   */
+  static class LongArrayCodec extends Codec {
+    Object read(JSONReader reader, JSONToken token) throws ParseException, IOException {
+      if (token == JSONToken.NULL) {
+        return null;
+      } else if (token != JSONToken.START_ARRAY) {
+        throw mismatch(reader, token, "an array");
+      } // if
+      long[] result = new long[16];
+      int size = 0;
+      JSONToken next;
+      while ((next = reader.nextToken()) != JSONToken.END_ARRAY) {
+        if (size == result.length) {
+          result = Arrays.copyOf(result, 2 * size);
+        } // if
+        result[size++] = readLong(reader, next, Long.MIN_VALUE, Long.MAX_VALUE);
+      } // while
+      return Arrays.copyOf(result, size);
+    } // read(JSONReader, JSONToken)
+
+    void write(Object value, JSONWriter writer) throws IOException {
+      long[] array = (long[]) value;
+      writer.append('[');
+      for (int i = 0; i < array.length; i++) {
+        if (i > 0) {
+          writer.append(',');
+        } // if
+        writer.writeLong(array[i]);
+      } // for
+      writer.append(']');
+    } // write(Object, JSONWriter)
+  } // class LongArrayCodec
+
+  /**
+   * Arrays of ints.
+   */
+  static class IntArrayCodec extends Codec {
+    Object read(JSONReader reader, JSONToken token) throws ParseException, IOException {
+      if (token == JSONToken.NULL) {
+        return null;
+      } else if (token != JSONToken.START_ARRAY) {
+        throw mismatch(reader, token, "an array");
+      } // if
+      int[] result = new int[16];
+      int size = 0;
+      JSONToken next;
+      while ((next = reader.nextToken()) != JSONToken.END_ARRAY) {
+        if (size == result.length) {
+          result = Arrays.copyOf(result, 2 * size);
+        } // if
+        result[size++] = (int) readLong(reader, next, Integer.MIN_VALUE, Integer.MAX_VALUE);
+      } // while
+      return Arrays.copyOf(result, size);
+    } // read(JSONReader, JSONToken)
+
+    void write(Object value, JSONWriter writer) throws IOException {
+      int[] array = (int[]) value;
+      writer.append('[');
+      for (int i = 0; i < array.length; i++) {
+        if (i > 0) {
+          writer.append(',');
+        } // if
+        writer.writeLong(array[i]);
+      } // for
+      writer.append(']');
+    } // write(Object, JSONWriter)
+  } // class IntArrayCodec
+
+  /**
+   * Arrays of doubles.
+   */
+  static class DoubleArrayCodec extends Codec {
+    Object read(JSONReader reader, JSONToken token) throws ParseException, IOException {
+      if (token == JSONToken.NULL) {
+        return null;
+      } else if (token != JSONToken.START_ARRAY) {
+        throw mismatch(reader, token, "an array");
+      } // if
+      double[] result = new double[16];
+      int size = 0;
+      JSONToken next;
+      while ((next = reader.nextToken()) != JSONToken.END_ARRAY) {
+        if (size == result.length) {
+          result = Arrays.copyOf(result, 2 * size);
+        } // if
+        result[size++] = readDouble(reader, next);
+      } // while
+      return Arrays.copyOf(result, size);
+    } // read(JSONReader, JSONToken)
+
+    void write(Object value, JSONWriter writer) throws IOException {
+      double[] array = (double[]) value;
+      writer.append('[');
+      for (int i = 0; i < array.length; i++) {
+        if (i > 0) {
+          writer.append(',');
+        } // if
+        writeDouble(array[i], writer);
+      } // for
+      writer.append(']');
+    } // write(Object, JSONWriter)
+  } // class DoubleArrayCodec
+
+  /**
+   * Other arrays.
+   */
+  static class ArrayCodec extends Codec {
+    /**
+     * The class of the elements.
+     */
+    Class<?> component;
+
+    /**
+     * The codec for the elements.
+     */
+    Codec elements;
+
+    /**
+     * Build a codec for arrays of component, whose elements are read
+     * and written with elements.
+     */
+    ArrayCodec(Class<?> component, Codec elements) {
+      this.component = component;
+      this.elements = elements;
+    } // ArrayCodec(Class<?>, Codec)
+
+    Object read(JSONReader reader, JSONToken token) throws ParseException, IOException {
+      if (token == JSONToken.NULL) {
+        return null;
+      } else if (token != JSONToken.START_ARRAY) {
+        throw mismatch(reader, token, "an array");
+      } // if
+      List<Object> list = new ArrayList<Object>();
+      JSONToken next;
+      while ((next = reader.nextToken()) != JSONToken.END_ARRAY) {
+        list.add(this.elements.read(reader, next));
+      } // while
+      Object result = Array.newInstance(this.component, list.size());
+      for (int i = 0; i < list.size(); i++) {
+        try {
+          Array.set(result, i, list.get(i));
+        } catch (IllegalArgumentException e) {
+          throw new ParseException("Expected a " + this.component.getSimpleName()
+              + " but found " + list.get(i).getClass().getSimpleName(), reader.position());
+        } // try
+      } // for
+      return result;
+    } // read(JSONReader, JSONToken)
+
+    void write(Object value, JSONWriter writer) throws IOException {
+      int length = Array.getLength(value);
+      writer.append('[');
+      for (int i = 0; i < length; i++) {
+        if (i > 0) {
+          writer.append(',');
+        } // if
+        Object element = Array.get(value, i);
+        if (element == null) {
+          writer.append("null");
+        } else {
+          this.elements.write(element, writer);
+        } // if
+      } // for
+      writer.append(']');
+    } // write(Object, JSONWriter)
+  } // class ArrayCodec
+
+  /**
+   * Collections. Interfaces are read as ArrayLists (or LinkedHashSets
+   * for sets); other classes need a no-argument constructor.
+   */
+  static class CollectionCodec extends Codec {
+    /**
+     * The class of collection we build.
+     */
+    Class<?> type;
+
+    /**
+     * A handle that builds an empty collection, ()Object, or null
+     * until we first read one.
+     */
+    MethodHandle constructor;
+
+    /**
+     * The codec for the elements.
+     */
+    Codec elements;
+
+    /**
+     * Build a codec for collections of a type (or a list or set, if
+     * the type is abstract), whose elements are read and written with
+     * elements.
+     */
+    CollectionCodec(Class<?> type, Codec elements) {
+      this.elements = elements;
+      if (type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+        type = Set.class.isAssignableFrom(type) ? LinkedHashSet.class : ArrayList.class;
+      } // if
+      this.type = type;
+    } // CollectionCodec(Class<?>, Codec)
+
+    @SuppressWarnings("unchecked")
+    Object read(JSONReader reader, JSONToken token) throws ParseException, IOException {
+      if (token == JSONToken.NULL) {
+        return null;
+      } else if (token != JSONToken.START_ARRAY) {
+        throw mismatch(reader, token, "an array");
+      } // if
+      if (this.constructor == null) {
+        // Look this up on first use, since we can write collections we can't build.
+        this.constructor = noArgConstructor(this.type);
+      } // if
+      Collection<Object> result;
+      try {
+        result = (Collection<Object>) (Object) this.constructor.invokeExact();
+      } catch (Throwable thrown) {
+        throw rethrow(thrown);
+      } // try
+      JSONToken next;
+      while ((next = reader.nextToken()) != JSONToken.END_ARRAY) {
+        result.add(this.elements.read(reader, next));
+      } // while
+      return result;
+    } // read(JSONReader, JSONToken)
+
+    void write(Object value, JSONWriter writer) throws IOException {
+      writer.append('[');
+      boolean first = true;
+      for (Object element : (Collection<?>) value) {
+        if (!first) {
+          writer.append(',');
+        } // if
+        first = false;
+        if (element == null) {
+          writer.append("null");
+        } else {
+          this.elements.write(element, writer);
+        } // if
+      } // for
+      writer.append(']');
+    } // write(Object, JSONWriter)
+  } // class CollectionCodec
+
+  /**
+   * Maps with string keys. Interfaces are read as LinkedHashMaps; other
+   * classes need a no-argument constructor.
+   */
+  static class MapCodec extends Codec {
+    /**
+     * The class of map we build.
+     */
+    Class<?> type;
+
+    /**
+     * A handle that builds an empty map, ()Object, or null until we
+     * first read one.
+     */
+    MethodHandle constructor;
+
+    /**
+     * The codec for the values.
+     */
+    Codec values;
+
+    /**
+     * Build a codec for maps of a type (or LinkedHashMaps, if the type
+     * is abstract), whose values are read and written with values.
+     */
+    MapCodec(Class<?> type, Codec values) {
+      this.values = values;
+      if (type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+        type = LinkedHashMap.class;
+      } // if
+      this.type = type;
+    } // MapCodec(Class<?>, Codec)
+
+    @SuppressWarnings("unchecked")
+    Object read(JSONReader reader, JSONToken token) throws ParseException, IOException {
+      if (token == JSONToken.NULL) {
+        return null;
+      } else if (token != JSONToken.START_HASH) {
+        throw mismatch(reader, token, "a hash");
+      } // if
+      if (this.constructor == null) {
+        // Look this up on first use, since we can write maps we can't build.
+        this.constructor = noArgConstructor(this.type);
+      } // if
+      Map<String, Object> result;
+      try {
+        result = (Map<String, Object>) (Object) this.constructor.invokeExact();
+      } catch (Throwable thrown) {
+        throw rethrow(thrown);
+      } // try
+      while (reader.nextToken() != JSONToken.END_HASH) {
+        String key = reader.getString();
+        result.put(key, this.values.read(reader, reader.nextToken()));
+      } // while
+      return result;
+    } // read(JSONReader, JSONToken)
+
+    void write(Object value, JSONWriter writer) throws IOException {
+      writer.append('{');
+      boolean first = true;
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        if (!first) {
+          writer.append(',');
+        } // if
+        first = false;
+        writer.writeString(String.valueOf(entry.getKey()));
+        writer.append(':');
+        if (entry.getValue() == null) {
+          writer.append("null");
+        } else {
+          this.values.write(entry.getValue(), writer);
+        } // if
+      } // for
+      writer.append('}');
+    } // write(Object, JSONWriter)
+  } // class MapCodec
+
+  /**
+   * Records and other classes, read from and written to hashes. The
+   * properties are looked up when the codec is first used, so that a
+   * class can refer to itself.
+   */
+  static class ObjectCodec extends Codec {
+    /**
+     * The class.
+     */
+    Class<?> type;
+
+    /**
+     * The properties, in declaration order, or null until we have
+     * looked them up.
+     */
+    volatile Property[] properties;
+
+    /**
+     * The properties by name.
+     */
+    Map<String, Property> byName;
+
+    /**
+     * For a class, a handle that builds an empty object: ()Object.
+     * For a record, a handle that builds one from its components:
+     * (long[], double[], Object[])Object.
+     */
+    MethodHandle constructor;
+
+    /**
+     * Whether the class is a record.
+     */
+    boolean record;
+
+    /**
+     * Build a codec for a record or class. Nothing is looked up yet.
+     */
+    ObjectCodec(Class<?> type) {
+      this.type = type;
+      this.record = type.isRecord();
+    } // ObjectCodec(Class<?>)
+
+    /**
+     * Look up the constructor and properties, if we haven't yet.
+     */
+    Property[] properties() {
+      Property[] result = this.properties;
+      if (result == null) {
+        synchronized (this) {
+          result = this.properties;
+          if (result == null) {
+            result = this.record ? recordProperties() : classProperties();
+            this.byName = new HashMap<String, Property>();
+            for (Property property : result) {
+              this.byName.put(property.name, property);
+            } // for
+            this.properties = result;
+          } // if
+        } // synchronized
+      } // if
+      return result;
+    } // properties()
+
+    /**
+     * Look up the components and canonical constructor of a record.
+     */
+    Property[] recordProperties() {
+      try {
+        MethodHandles.Lookup lookup = lookupIn(this.type);
+        RecordComponent[] components = this.type.getRecordComponents();
+        Property[] result = new Property[components.length];
+        Class<?>[] types = new Class<?>[components.length];
+        for (int i = 0; i < components.length; i++) {
+          RecordComponent component = components[i];
+          types[i] = component.getType();
+          result[i] = new Property(component.getName(), component.getType(),
+              component.getGenericType(), lookup.unreflect(component.getAccessor()), null, i);
+        } // for
+        this.constructor = spreadConstructor(
+            lookup.findConstructor(this.type, MethodType.methodType(void.class, types)), types);
+        return result;
+      } catch (ReflectiveOperationException e) {
+        throw new IllegalArgumentException("Cannot bind JSON to " + this.type.getName(), e);
+      } // try
+    } // recordProperties()
+
+    /**
+     * Look up the no-argument constructor and the fields of a class.
+     */
+    Property[] classProperties() {
+      this.constructor = noArgConstructor(this.type);
+      try {
+        List<Property> result = new ArrayList<Property>();
+        for (Class<?> c = this.type; (c != null) && (c != Object.class); c = c.getSuperclass()) {
+          MethodHandles.Lookup lookup = lookupIn(c);
+          List<Property> declared = new ArrayList<Property>();
+          for (Field field : c.getDeclaredFields()) {
+            int modifiers = field.getModifiers();
+            if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers)
+                || field.isSynthetic()) {
+              continue;
+            } // if
+            MethodHandle setter = Modifier.isFinal(modifiers) ? null : lookup.unreflectSetter(field);
+            declared.add(new Property(field.getName(), field.getType(), field.getGenericType(),
+                lookup.unreflectGetter(field), setter, -1));
+          } // for
+          // Superclass fields come first.
+          result.addAll(0, declared);
+        } // for
+        return result.toArray(new Property[result.size()]);
+      } catch (IllegalAccessException e) {
+        throw new IllegalArgumentException("Cannot bind JSON to " + this.type.getName(), e);
+      } // try
+    } // classProperties()
+
+    Object read(JSONReader reader, JSONToken token) throws ParseException, IOException {
+      if (token == JSONToken.NULL) {
+        return null;
+      } else if (token != JSONToken.START_HASH) {
+        throw mismatch(reader, token, "a hash");
+      } // if
+      Property[] all = properties();
+      Object target = null;
+      long[] longs = null;
+      double[] doubles = null;
+      Object[] refs = null;
+      try {
+        if (this.record) {
+          longs = new long[all.length];
+          doubles = new double[all.length];
+          refs = new Object[all.length];
+        } else {
+          target = (Object) this.constructor.invokeExact();
+        } // if
+        while (reader.nextToken() != JSONToken.END_HASH) {
+          Property property = this.byName.get(reader.getString());
+          JSONToken next = reader.nextToken();
+          if ((property == null) || (!this.record && (property.setter == null))) {
+            reader.skipChildren();
+            continue;
+          } // if
+          switch (property.kind) {
+            case LONG:
+              long l = readLong(reader, next, property.min, property.max);
+              if (this.record) {
+                longs[property.slot] = l;
+              } else {
+                property.setter.invokeExact(target, l);
+              } // if
+              break;
+            case BOOLEAN:
+              long b = readBoolean(reader, next) ? 1 : 0;
+              if (this.record) {
+                longs[property.slot] = b;
+              } else {
+                property.setter.invokeExact(target, b);
+              } // if
+              break;
+            case DOUBLE:
+              double d = readDouble(reader, next);
+              if (this.record) {
+                doubles[property.slot] = d;
+              } else {
+                property.setter.invokeExact(target, d);
+              } // if
+              break;
+            default:
+              Object o = property.codec().read(reader, next);
+              if ((o != null) && !property.holder.isInstance(o)) {
+                // Otherwise the handle would throw a ClassCastException.
+                throw new ParseException("Expected a " + property.holder.getSimpleName()
+                    + " for " + property.name + " but found " + next, reader.position());
+              } // if
+              if (this.record) {
+                refs[property.slot] = o;
+              } else {
+                property.setter.invokeExact(target, o);
+              } // if
+              break;
+          } // switch
+        } // while
+        if (this.record) {
+          target = (Object) this.constructor.invokeExact(longs, doubles, refs);
+        } // if
+      } catch (Throwable thrown) {
+        throw rethrow(thrown);
+      } // try
+      return target;
+    } // read(JSONReader, JSONToken)
+
+    void write(Object value, JSONWriter writer) throws IOException {
+      Property[] all = properties();
+      writer.append('{');
+      try {
+        for (int i = 0; i < all.length; i++) {
+          Property property = all[i];
+          if (i > 0) {
+            writer.append(',');
+          } // if
+          writer.writeString(property.name);
+          writer.append(':');
+          switch (property.kind) {
+            case LONG:
+              writer.writeLong((long) property.getter.invokeExact(value));
+              break;
+            case BOOLEAN:
+              writer.append(((long) property.getter.invokeExact(value) != 0) ? "true" : "false");
+              break;
+            case DOUBLE:
+              writeDouble((double) property.getter.invokeExact(value), writer);
+              break;
+            default:
+              Object o = (Object) property.getter.invokeExact(value);
+              if (o == null) {
+                writer.append("null");
+              } else {
+                property.codec().write(o, writer);
+              } // if
+              break;
+          } // switch
+        } // for
+      } catch (IOException | RuntimeException | Error e) {
+        throw e;
+      } catch (Throwable thrown) {
+        throw new IllegalStateException(thrown);
+      } // try
+      writer.append('}');
+    } // write(Object, JSONWriter)
+  } // class ObjectCodec
+
+  /**
+   * One field of a class or component of a record.
+   */
+  static class Property {
+    /**
+     * The key for the property.
+     */
+    String name;
+
+    /**
+     * LONG, DOUBLE, BOOLEAN, or REF.
+     */
+    int kind;
+
+    /**
+     * The declared type, for finding the codec.
+     */
+    Type type;
+
+    /**
+     * The class that the values of a REF property must belong to (the
+     * declared class, or Character for a char).
+     */
+    Class<?> holder;
+
+    /**
+     * The codec, for REF properties, or null until it is first needed.
+     */
+    volatile Codec codec;
+
+    /**
+     * The smallest value a LONG property can take.
+     */
+    long min;
+
+    /**
+     * The largest value a LONG property can take.
+     */
+    long max;
+
+    /**
+     * (Object)long, (Object)double, or (Object)Object, depending on
+     * the kind.
+     */
+    MethodHandle getter;
+
+    /**
+     * (Object, long)void, (Object, double)void, or (Object, Object)void,
+     * depending on the kind; null for records and final fields.
+     */
+    MethodHandle setter;
+
+    /**
+     * The index of a record component.
+     */
+    int slot;
+
+    /**
+     * Build a property of class raw (and possibly generic type) with
+     * handles that get and set it as declared; setter is null for
+     * records and final fields, and slot is -1 except in records.
+     */
+    Property(String name, Class<?> raw, Type type, MethodHandle getter, MethodHandle setter,
+        int slot) {
+      this.name = name;
+      this.kind = kindOf(raw);
+      this.type = type;
+      this.holder = (raw == char.class) ? Character.class : raw;
+      this.slot = slot;
+      Class<?> stored = slotClass(this.kind);
+      this.getter = MethodHandles.explicitCastArguments(getter,
+          MethodType.methodType(stored, Object.class));
+      if (setter != null) {
+        this.setter = MethodHandles.explicitCastArguments(setter,
+            MethodType.methodType(void.class, Object.class, stored));
+      } // if
+      if (this.kind == LONG) {
+        IntegralCodec range = (IntegralCodec) CODECS.get(raw);
+        this.min = range.min;
+        this.max = range.max;
+      } // if
+    } // Property(String, Class<?>, Type, MethodHandle, MethodHandle, int)
+
+    /**
+     * Get the codec for a REF property.
+     */
+    Codec codec() {
+      Codec result = this.codec;
+      if (result == null) {
+        result = this.codec = codecFor(this.type);
+      } // if
+      return result;
+    } // codec()
+  } // class Property
+
+  /**
+   * Get a lookup that can see the private members of a class, or only
+   * the public ones if its module doesn't let us in (as with the JDK's
+   * own collections).
+   */
+  static MethodHandles.Lookup lookupIn(Class<?> type) {
+    try {
+      return MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+    } catch (IllegalAccessException e) {
+      return MethodHandles.publicLookup();
+    } // try
+  } // lookupIn(Class<?>)
+
+  /**
+   * Get a handle that calls the no-argument constructor of a class:
+   * ()Object.
+   */
+  static MethodHandle noArgConstructor(Class<?> type) {
+    try {
+      return lookupIn(type).findConstructor(type, MethodType.methodType(void.class))
+          .asType(MethodType.methodType(Object.class));
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalArgumentException("Cannot bind JSON to " + type.getName()
+          + ": it needs a no-argument constructor", e);
+    } // try
+  } // noArgConstructor(Class<?>)
+
+  /**
+   * Turn a record's canonical constructor into a handle of type
+   * (long[], double[], Object[])Object that takes each component from
+   * the array for its kind, at the component's index.
+   */
+  static MethodHandle spreadConstructor(MethodHandle constructor, Class<?>[] types) {
+    MethodHandle[] filters = new MethodHandle[types.length];
+    int[] reorder = new int[types.length];
+    for (int i = 0; i < types.length; i++) {
+      int kind = kindOf(types[i]);
+      Class<?> arrayType;
+      if (kind == REF) {
+        arrayType = Object[].class;
+        reorder[i] = 2;
+      } else if (kind == DOUBLE) {
+        arrayType = double[].class;
+        reorder[i] = 1;
+      } else {
+        arrayType = long[].class;
+        reorder[i] = 0;
+      } // if
+      MethodHandle element = MethodHandles.insertArguments(
+          MethodHandles.arrayElementGetter(arrayType), 1, i);
+      filters[i] = MethodHandles.explicitCastArguments(element,
+          MethodType.methodType(types[i], arrayType));
+    } // for
+    MethodHandle filtered = MethodHandles.filterArguments(constructor, 0, filters);
+    filtered = filtered.asType(filtered.type().changeReturnType(Object.class));
+    return MethodHandles.permuteArguments(filtered,
+        MethodType.methodType(Object.class, long[].class, double[].class, Object[].class),
+        reorder);
+  } // spreadConstructor(MethodHandle, Class<?>[])
+
+} // class JSONBinder
@@ -0,0 +1,462 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.Arrays;
+
+/**
+ * UTF-8 input for the JSON parser. Structural characters, numbers, and
+ * ASCII strings are lexed directly on the bytes; only strings that
+ * contain non-ASCII characters go through a UTF-8 decoder.
+ *
+ * @author Marina Ananias
+ * @author Linda Jing
+ * @author Keely Miyamoto
+ */
+public class JSONByteLexer extends JSONLexer {
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * Where we get more bytes from, or null if we are not reading a
+   * stream.
+   */
+  InputStream stream;
+
+  /**
+   * Where we get more bytes from, or null if we are not reading a
+   * buffer in pieces.
+   */
+  ByteBuffer buffer;
+
+  /**
+   * The bytes we have read but not yet consumed.
+   */
+  byte[] buf;
+
+  /**
+   * The index of the next unconsumed byte in buf.
+   */
+  int index;
+
+  /**
+   * The number of valid bytes in buf.
+   */
+  int limit;
+
+  /**
+   * The number of input bytes that came before buf[0]. (This is negative
+   * when we scan a slice of someone else's array.)
+   */
+  int offset;
+
+  /**
+   * The same as offset, but kept as a long so that it does not wrap
+   * around on inputs of 2GB or more.
+   */
+  long base;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Build a lexer that scans an array of bytes in place.
+   */
+  public JSONByteLexer(byte[] source) {
+    this.buf = source;
+    this.index = 0;
+    this.limit = source.length;
+    this.offset = 0;
+    this.base = 0;
+  } // JSONByteLexer(byte[])
+
+  /**
+   * Build a lexer that reads the remaining bytes of a buffer. Heap
+   * buffers are scanned in place; direct buffers are copied out a
+   * piece at a time.
+   */
+  public JSONByteLexer(ByteBuffer source) {
+    if (source.hasArray()) {
+      this.buf = source.array();
+      this.index = source.arrayOffset() + source.position();
+      this.limit = source.arrayOffset() + source.limit();
+      this.offset = -this.index;
+      this.base = this.offset;
+    } else {
+      this.buffer = source.duplicate();
+      this.buf = new byte[Math.max(16, Math.min(BUFFER_SIZE, source.remaining()))];
+      this.index = 0;
+      this.limit = 0;
+      this.offset = 0;
+      this.base = 0;
+    } // if
+  } // JSONByteLexer(ByteBuffer)
+
+  /**
+   * Build a lexer that scans bytes[start..end), where bytes[0] is at
+   * input position -offset.
+   */
+  JSONByteLexer(byte[] bytes, int start, int end, int offset) {
+    this.buf = bytes;
+    this.index = start;
+    this.limit = end;
+    this.offset = offset;
+    this.base = offset;
+  } // JSONByteLexer(byte[], int, int, int)
+
+  /**
+   * Build a lexer that reads from a stream.
+   */
+  public JSONByteLexer(InputStream source) {
+    this.stream = source;
+    this.buf = new byte[BUFFER_SIZE];
+    this.index = 0;
+    this.limit = 0;
+    this.offset = 0;
+    this.base = 0;
+  } // JSONByteLexer(InputStream)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Get the next byte, or -1 at the end of the input.
+   */
+  public int read() throws IOException {
+    if ((this.index >= this.limit) && !fill()) {
+      return -1;
+    } // if
+    return this.buf[this.index++] & 0xFF;
+  } // read()
+
+  /**
+   * Get the next byte that is not whitespace, or -1 at the end of the
+   * input.
+   */
+  public int skipWhitespace() throws IOException {
+    do {
+      byte[] bytes = this.buf;
+      int i = this.index;
+      int end = this.limit;
+      while (i < end) {
+        int ch = bytes[i++] & 0xFF;
+        if (!JSON.isWhitespace(ch)) {
+          this.index = i;
+          return ch;
+        } // if
+      } // while
+      this.index = i;
+    } while (fill());
+    return -1;
+  } // skipWhitespace()
+
+  /**
+   * Read the rest of a string whose opening quote has just been read.
+   * Runs of ASCII are turned into a String without a decoder; runs with
+   * non-ASCII bytes are decoded as UTF-8.
+   */
+  public String readString() throws ParseException, IOException {
+    StringBuilder builder = null;
+    int start = this.index;
+    int i = start;
+    boolean ascii = true;
+    while (true) {
+      // Scan for the closing quote, a backslash, or a control character.
+      byte[] bytes = this.buf;
+      int end = this.limit;
+      int ch = 0;
+      while (i < end) {
+        ch = bytes[i];
+        if (ch < 0) {
+          ascii = false;
+        } else if ((ch == '\"') || (ch == '\\') || (ch < 0x20)) {
+          break;
+        } // if
+        i++;
+      } // while
+      if (i >= end) {
+        // The string continues past the buffer, so keep what we have.
+        this.index = i;
+        int shift = start;
+        if (!fill(start)) {
+          throw new ParseException("Unterminated string", position());
+        } // if
+        start -= shift;
+        i -= shift;
+      } else if (ch == '\"') {
+        this.index = i + 1;
+        String run = decode(bytes, start, i, ascii);
+        if (builder == null) {
+          return run;
+        } // if
+        return builder.append(run).toString();
+      } else if (ch == '\\') {
+        if (builder == null) {
+          builder = new StringBuilder(Math.max(16, 2 * (i - start)));
+        } // if
+        builder.append(decode(bytes, start, i, ascii));
+        this.index = i + 1;
+        builder.append(readEscape());
+        start = this.index;
+        i = start;
+        ascii = true;
+      } else {
+        this.index = i;
+        throw new ParseException("Unescaped control character in string", position());
+      } // if
+    } // while
+  } // readString()
+
+  /**
+   * Read the rest of a key whose opening quote has just been read. An
+   * ASCII key that is already in the buffer and has no escapes is looked
+   * up in place, so a cached key costs no allocation.
+   */
+  public JSONString readKey(JSONKeyCache cache) throws ParseException, IOException {
+    byte[] bytes = this.buf;
+    int start = this.index;
+    int end = this.limit;
+    int i = start;
+    byte ch = 0;
+    while ((i < end) && ((ch = bytes[i]) != '\"') && (ch != '\\') && (ch >= 0x20)) {
+      i++;
+    } // while
+    if ((i < end) && (ch == '\"')) {
+      this.index = i + 1;
+      return cache.get(bytes, start, i);
+    } // if
+    return cache.get(readString());
+  } // readKey(JSONKeyCache)
+
+  /**
+   * Read a number whose first byte has just been read.
+   */
+  public JSONToken readNumber() throws ParseException, IOException {
+    int start = this.index - 1;
+    int i = this.index;
+    boolean real = false;
+    while (true) {
+      byte[] bytes = this.buf;
+      int end = this.limit;
+      while (i < end) {
+        byte ch = bytes[i];
+        if ((ch == '.') || (ch == 'e') || (ch == 'E')) {
+          real = true;
+        } else if (!(((ch >= '0') && (ch <= '9')) || (ch == '-') || (ch == '+'))) {
+          break;
+        } // if
+        i++;
+      } // while
+      if (i < end) {
+        break;
+      } // if
+      // The number may continue past the buffer, so keep what we have.
+      this.index = i;
+      int before = this.offset;
+      boolean more = fill(start);
+      // Even at the end of the input, fill may have moved what we kept.
+      start -= this.offset - before;
+      i -= this.offset - before;
+      if (!more) {
+        break;
+      } // if
+    } // while
+    this.index = i;
+    if (!isNumber(this.buf, start, i)) {
+      throw new ParseException("Invalid number", this.offset + start);
+    } // if
+    if (!real && ((i - start) <= 18)) {
+      return setInteger(parseLong(this.buf, start, i));
+    } // if
+    return setNumber(new String(this.buf, start, i - start, StandardCharsets.ISO_8859_1), real);
+  } // readNumber()
+
+  /**
+   * Skip the rest of an array or hash whose opening bracket has just
+   * been read. Only the nesting depth and whether we are in a string
+   * are tracked, so the contents are not checked.
+   */
+  public void skipContainer() throws ParseException, IOException {
+    int depth = 1;
+    boolean inString = false;
+    boolean escaped = false;
+    do {
+      byte[] bytes = this.buf;
+      int i = this.index;
+      int end = this.limit;
+      while (i < end) {
+        int ch = bytes[i++];
+        if (inString) {
+          if (escaped) {
+            escaped = false;
+          } else if (ch == '\\') {
+            escaped = true;
+          } else if (ch == '\"') {
+            inString = false;
+          } // if
+        } else if (ch == '\"') {
+          inString = true;
+        } else if ((ch == '[') || (ch == '{')) {
+          depth++;
+        } else if (((ch == ']') || (ch == '}')) && (--depth == 0)) {
+          this.index = i;
+          return;
+        } // if
+      } // while
+      this.index = i;
+    } while (fill());
+    throw new ParseException("Unexpected end of file", position());
+  } // skipContainer()
+
+  /**
+   * Get a new lexer that reads the input between two positions.
+   */
+  public JSONLexer slice(int start, int end) {
+    if ((this.stream != null) || (this.buffer != null)) {
+      return super.slice(start, end);
+    } // if
+    return new JSONByteLexer(this.buf, start - this.offset, end - this.offset, this.offset);
+  } // slice(int, int)
+
+  /**
+   * Get the position of the next byte in the input.
+   */
+  public int position() {
+    return this.offset + this.index;
+  } // position()
+
+  /**
+   * Get the number of bytes read so far.
+   */
+  public long consumed() {
+    return this.base + this.index;
+  } // consumed()
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Replace the consumed contents of the buffer with more input.
+   * Returns false if there is no more input.
+   */
+  boolean fill() throws IOException {
+    return fill(this.limit);
+  } // fill()
+
+  /**
+   * Read more input, keeping the bytes from keep onward. Those bytes
+   * move to the front of the buffer, so index (and anything the caller
+   * remembers) moves back by keep. Returns false if there is no more
+   * input.
+   */
+  boolean fill(int keep) throws IOException {
+    if ((this.stream == null) && (this.buffer == null)) {
+      return false;
+    } // if
+    int kept = this.limit - keep;
+    if (kept == this.buf.length) {
+      this.buf = Arrays.copyOf(this.buf, 2 * this.buf.length);
+    } else if (kept > 0) {
+      System.arraycopy(this.buf, keep, this.buf, 0, kept);
+    } // if
+    this.offset += keep;
+    this.base += keep;
+    this.index -= keep;
+    this.limit = kept;
+    int count;
+    if (this.stream != null) {
+      do {
+        count = this.stream.read(this.buf, kept, this.buf.length - kept);
+      } while (count == 0);
+    } else {
+      count = Math.min(this.buffer.remaining(), this.buf.length - kept);
+      if (count == 0) {
+        count = -1;
+      } else {
+        this.buffer.get(this.buf, kept, count);
+      } // if
+    } // if
+    if (count < 0) {
+      return false;
+    } // if
+    this.limit += count;
+    return true;
+  } // fill(int)
+
+  /**
+   * Turn bytes[start..end) into a string.
+   */
+  static String decode(byte[] bytes, int start, int end, boolean ascii) {
+    if (ascii) {
+      return new String(bytes, start, end - start, StandardCharsets.ISO_8859_1);
+    } // if
+    return new String(bytes, start, end - start, StandardCharsets.UTF_8);
+  } // decode(byte[], int, int, boolean)
+
+  /**
+   * Determine if bytes[start..end) is a JSON number.
+   */
+  static boolean isNumber(byte[] bytes, int start, int end) {
+    int i = start;
+    if ((i < end) && (bytes[i] == '-')) {
+      i++;
+    } // if
+    // Integer part: a single 0 or digits without a leading 0.
+    if ((i < end) && (bytes[i] == '0')) {
+      i++;
+    } else if ((i < end) && (bytes[i] >= '1') && (bytes[i] <= '9')) {
+      i = skipDigits(bytes, i, end);
+    } else {
+      return false;
+    } // if
+    // Optional fraction.
+    if ((i < end) && (bytes[i] == '.')) {
+      int digits = ++i;
+      i = skipDigits(bytes, i, end);
+      if (i == digits) {
+        return false;
+      } // if
+    } // if
+    // Optional exponent.
+    if ((i < end) && ((bytes[i] == 'e') || (bytes[i] == 'E'))) {
+      i++;
+      if ((i < end) && ((bytes[i] == '+') || (bytes[i] == '-'))) {
+        i++;
+      } // if
+      int digits = i;
+      i = skipDigits(bytes, i, end);
+      if (i == digits) {
+        return false;
+      } // if
+    } // if
+    return i == end;
+  } // isNumber(byte[], int, int)
+
+  /**
+   * Convert bytes[start..end), an integer of at most 18 digits, to a long.
+   */
+  static long parseLong(byte[] bytes, int start, int end) {
+    boolean negative = (bytes[start] == '-');
+    long value = 0;
+    for (int i = negative ? start + 1 : start; i < end; i++) {
+      value = 10 * value + (bytes[i] - '0');
+    } // for
+    return negative ? -value : value;
+  } // parseLong(byte[], int, int)
+
+  /**
+   * Find the first non-digit in bytes[i..end).
+   */
+  static int skipDigits(byte[] bytes, int i, int end) {
+    while ((i < end) && (bytes[i] >= '0') && (bytes[i] <= '9')) {
+      i++;
+    } // while
+    return i;
+  } // skipDigits(byte[], int, int)
+
+} // class JSONByteLexer
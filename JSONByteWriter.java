@@ -0,0 +1,464 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Writes JSON values as UTF-8 bytes, without going through chars. The
+ * bytes are encoded straight into a buffer that each thread reuses from
+ * one value to the next, so serializing a value allocates little beyond
+ * the result itself.
+ *
+ * @author Marina Ananias
+ * @author Linda Jing
+ * @author Keely Miyamoto
+ */
+public class JSONByteWriter {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The size of a new buffer.
+   */
+  static final int BUFFER_SIZE = 8192;
+
+  /**
+   * The largest buffer we keep for reuse.
+   */
+  static final int MAX_POOLED_SIZE = 1 << 20;
+
+  /**
+   * Hex digits, for unicode escapes.
+   */
+  static final byte[] HEX = {'0', '1', '2', '3', '4', '5', '6', '7',
+      '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+
+  /**
+   * The smallest double that Double.toString writes with an exponent.
+   * Whole numbers below this we write ourselves, the same way.
+   */
+  static final double MAX_INTEGRAL = 1e7;
+
+  /**
+   * Each thread's spare buffer, or null while that thread is using it.
+   */
+  static final ThreadLocal<byte[]> POOL = new ThreadLocal<byte[]>();
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * Where full buffers go, or null if we collect everything in buf.
+   */
+  OutputStream out;
+
+  /**
+   * The bytes we have not handed on yet.
+   */
+  byte[] buf;
+
+  /**
+   * The number of bytes in buf.
+   */
+  int count;
+
+  /**
+   * The number of bytes handed on to out so far.
+   */
+  long written;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Build a new writer that writes to out, or that collects its output
+   * if out is null.
+   */
+  JSONByteWriter(OutputStream out) {
+    this.out = out;
+    this.buf = POOL.get();
+    if (this.buf == null) {
+      this.buf = new byte[BUFFER_SIZE];
+    } else {
+      POOL.set(null);
+    } // if
+    this.count = 0;
+  } // JSONByteWriter(OutputStream)
+
+  // +----------------+----------------------------------------------
+  // | Static methods |
+  // +----------------+
+
+  /**
+   * Write a value to a stream as UTF-8. The stream is not flushed.
+   */
+  public static void writeTo(JSONValue value, OutputStream out) throws IOException {
+    JSONEvents.Probe probe = JSONEvents.startWrite();
+    JSONByteWriter writer = new JSONByteWriter(out);
+    try {
+      writer.write(value);
+      writer.drain();
+      if (probe != null) {
+        JSONEvents.finishWrite(probe, writer.written, "writeTo", null);
+      } // if
+    } catch (IOException | RuntimeException | Error e) {
+      if (probe != null) {
+        JSONEvents.finishWrite(probe, writer.written + writer.count, "writeTo", e);
+      } // if
+      throw e;
+    } finally {
+      writer.release();
+    } // try
+  } // writeTo(JSONValue, OutputStream)
+
+  /**
+   * Get a value as UTF-8 bytes.
+   */
+  public static byte[] toBytes(JSONValue value) {
+    JSONEvents.Probe probe = JSONEvents.startWrite();
+    JSONByteWriter writer = new JSONByteWriter(null);
+    try {
+      writer.write(value);
+      if (probe != null) {
+        JSONEvents.finishWrite(probe, writer.count, "toBytes", null);
+      } // if
+      return Arrays.copyOf(writer.buf, writer.count);
+    } catch (IOException e) {
+      // We don't have a stream, so this can't happen.
+      throw new UncheckedIOException(e);
+    } catch (RuntimeException | Error e) {
+      if (probe != null) {
+        JSONEvents.finishWrite(probe, writer.count, "toBytes", e);
+      } // if
+      throw e;
+    } finally {
+      writer.release();
+    } // try
+  } // toBytes(JSONValue)
+
+  /**
+   * Put a value into a buffer as UTF-8. Throws a BufferOverflowException
+   * (and leaves the buffer alone) if it does not fit.
+   */
+  public static void writeTo(JSONValue value, ByteBuffer target) {
+    JSONEvents.Probe probe = JSONEvents.startWrite();
+    JSONByteWriter writer = new JSONByteWriter(null);
+    try {
+      writer.write(value);
+      target.put(writer.buf, 0, writer.count);
+      if (probe != null) {
+        JSONEvents.finishWrite(probe, writer.count, "writeTo", null);
+      } // if
+    } catch (IOException e) {
+      // We don't have a stream, so this can't happen.
+      throw new UncheckedIOException(e);
+    } catch (RuntimeException | Error e) {
+      if (probe != null) {
+        JSONEvents.finishWrite(probe, writer.count, "writeTo", e);
+      } // if
+      throw e;
+    } finally {
+      writer.release();
+    } // try
+  } // writeTo(JSONValue, ByteBuffer)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Write a value. Strings and keys are quoted and escaped.
+   */
+  void write(JSONValue value) throws IOException {
+    if (value instanceof JSONString) {
+      writeString(((JSONString) value).value);
+    } else if (value instanceof JSONHash) {
+      writeHash((JSONHash) value);
+    } else if (value instanceof JSONArray) {
+      writeArray((JSONArray) value);
+    } else if (value instanceof JSONInteger) {
+      JSONInteger integer = (JSONInteger) value;
+      if (integer.big == null) {
+        writeLong(integer.value);
+      } else {
+        writeAscii(integer.big.toString());
+      } // if
+    } else if (value instanceof JSONReal) {
+      JSONReal real = (JSONReal) value;
+      if (real.digits != null) {
+        writeAscii(real.digits);
+      } else if (real.decimal != null) {
+        writeAscii(real.decimal.toString());
+      } else {
+        writeDouble(real.value);
+      } // if
+    } else {
+      writeAscii(value.toString());
+    } // if
+  } // write(JSONValue)
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Write the elements of an array.
+   */
+  void writeArray(JSONArray array) throws IOException {
+    array.materialize();
+    writeByte('[');
+    if (array.values != null) {
+      for (int i = 0; i < array.values.size(); i++) {
+        if (i > 0) {
+          writeByte(',');
+        } // if
+        write(array.values.get(i));
+      } // for
+    } else {
+      for (int i = 0; i < array.size; i++) {
+        if (i > 0) {
+          writeByte(',');
+        } // if
+        if (array.longs != null) {
+          writeLong(array.longs[i]);
+        } else if (array.scales[i] == JSONArray.SCALE_INTEGER) {
+          writeLong((long) array.doubles[i]);
+        } else if (array.scales[i] == JSONArray.SCALE_TEXT) {
+          writeAscii(array.texts[i]);
+        } else {
+          writeDecimal(array.isNegative(i), array.significand(i), array.scales[i]);
+        } // if
+      } // for
+    } // if
+    writeByte(']');
+  } // writeArray(JSONArray)
+
+  /**
+   * Write the entries of a hash.
+   */
+  void writeHash(JSONHash hash) throws IOException {
+    hash.materialize();
+    writeByte('{');
+    for (int i = 0; i < hash.size; i++) {
+      if (i > 0) {
+        writeByte(',');
+      } // if
+      writeString(hash.keys[i].value);
+      writeByte(':');
+      write(hash.values[i]);
+    } // for
+    writeByte('}');
+  } // writeHash(JSONHash)
+
+  /**
+   * Write a string in quotes as UTF-8, escaping the characters JSON
+   * requires. Runs of plain ASCII are copied in a tight loop.
+   */
+  void writeString(String str) throws IOException {
+    writeByte('\"');
+    int length = str.length();
+    int i = 0;
+    while (i < length) {
+      // Copy plain ASCII for as long as it lasts and fits.
+      byte[] bytes = this.buf;
+      int n = this.count;
+      int stop = Math.min(length, i + (bytes.length - n));
+      char ch = 0;
+      while ((i < stop) && ((ch = str.charAt(i)) >= 0x20) && (ch < 0x80)
+          && (ch != '\"') && (ch != '\\')) {
+        bytes[n++] = (byte) ch;
+        i++;
+      } // while
+      this.count = n;
+      if ((i == length) || (i == stop)) {
+        if (n == bytes.length) {
+          makeRoom(1);
+        } // if
+        continue;
+      } // if
+      i++;
+      if ((ch == '\"') || (ch == '\\')) {
+        writeByte('\\');
+        writeByte(ch);
+      } else if (ch < 0x20) {
+        writeEscape(ch);
+      } else if (ch < 0x800) {
+        makeRoom(2);
+        this.buf[this.count++] = (byte) (0xC0 | (ch >> 6));
+        this.buf[this.count++] = (byte) (0x80 | (ch & 0x3F));
+      } else if (!Character.isSurrogate(ch)) {
+        makeRoom(3);
+        this.buf[this.count++] = (byte) (0xE0 | (ch >> 12));
+        this.buf[this.count++] = (byte) (0x80 | ((ch >> 6) & 0x3F));
+        this.buf[this.count++] = (byte) (0x80 | (ch & 0x3F));
+      } else if (Character.isHighSurrogate(ch) && (i < length)
+          && Character.isLowSurrogate(str.charAt(i))) {
+        int code = Character.toCodePoint(ch, str.charAt(i++));
+        makeRoom(4);
+        this.buf[this.count++] = (byte) (0xF0 | (code >> 18));
+        this.buf[this.count++] = (byte) (0x80 | ((code >> 12) & 0x3F));
+        this.buf[this.count++] = (byte) (0x80 | ((code >> 6) & 0x3F));
+        this.buf[this.count++] = (byte) (0x80 | (code & 0x3F));
+      } else {
+        // A lone surrogate can't be encoded, but it can be escaped.
+        writeEscape(ch);
+      } // if
+    } // while
+    writeByte('\"');
+  } // writeString(String)
+
+  /**
+   * Write the escape sequence for a character.
+   */
+  void writeEscape(char ch) throws IOException {
+    makeRoom(6);
+    this.buf[this.count++] = '\\';
+    switch (ch) {
+      case '\b':
+        this.buf[this.count++] = 'b';
+        break;
+      case '\f':
+        this.buf[this.count++] = 'f';
+        break;
+      case '\n':
+        this.buf[this.count++] = 'n';
+        break;
+      case '\r':
+        this.buf[this.count++] = 'r';
+        break;
+      case '\t':
+        this.buf[this.count++] = 't';
+        break;
+      default:
+        this.buf[this.count++] = 'u';
+        this.buf[this.count++] = HEX[ch >> 12];
+        this.buf[this.count++] = HEX[(ch >> 8) & 0xF];
+        this.buf[this.count++] = HEX[(ch >> 4) & 0xF];
+        this.buf[this.count++] = HEX[ch & 0xF];
+        break;
+    } // switch
+  } // writeEscape(char)
+
+  /**
+   * Write an integer without making a string of it.
+   */
+  void writeLong(long value) throws IOException {
+    if (value == Long.MIN_VALUE) {
+      writeAscii(Long.toString(value));
+      return;
+    } // if
+    makeRoom(20);
+    if (value < 0) {
+      this.buf[this.count++] = '-';
+      value = -value;
+    } // if
+    int digits = 1;
+    for (long rest = value; rest >= 10; rest /= 10) {
+      digits++;
+    } // for
+    int end = this.count + digits;
+    int i = end;
+    do {
+      this.buf[--i] = (byte) ('0' + (value % 10));
+      value /= 10;
+    } while (value != 0);
+    this.count = end;
+  } // writeLong(long)
+
+  /**
+   * Write a real given its digits as a whole number and how many of
+   * them go after the point.
+   */
+  void writeDecimal(boolean negative, long significand, int scale) throws IOException {
+    if (negative) {
+      writeByte('-');
+    } // if
+    long unit = JSONArray.TENS[scale];
+    writeLong(significand / unit);
+    writeByte('.');
+    long fraction = significand % unit;
+    for (int i = scale - 1; i >= 0; i--) {
+      writeByte((byte) ('0' + (fraction / JSONArray.TENS[i]) % 10));
+    } // for
+  } // writeDecimal(boolean, long, int)
+
+  /**
+   * Write a double. Whole numbers (the common case for measurements
+   * and counts) are written without making a string.
+   */
+  void writeDouble(double value) throws IOException {
+    if ((value == Math.rint(value)) && (Math.abs(value) < MAX_INTEGRAL)
+        && ((value != 0) || (1 / value > 0))) {
+      writeLong((long) value);
+      writeByte('.');
+      writeByte('0');
+    } else {
+      writeAscii(Double.toString(value));
+    } // if
+  } // writeDouble(double)
+
+  /**
+   * Write a string that is known to be ASCII.
+   */
+  void writeAscii(String str) throws IOException {
+    int length = str.length();
+    makeRoom(length);
+    for (int i = 0; i < length; i++) {
+      this.buf[this.count++] = (byte) str.charAt(i);
+    } // for
+  } // writeAscii(String)
+
+  /**
+   * Write one ASCII character.
+   */
+  void writeByte(int b) throws IOException {
+    if (this.count == this.buf.length) {
+      makeRoom(1);
+    } // if
+    this.buf[this.count++] = (byte) b;
+  } // writeByte(int)
+
+  /**
+   * Make sure there is room for at least n more bytes, either by
+   * handing the buffer to the stream or by growing it.
+   */
+  void makeRoom(int n) throws IOException {
+    if (this.count + n <= this.buf.length) {
+      return;
+    } // if
+    if (this.out != null) {
+      drain();
+    } // if
+    if (this.count + n > this.buf.length) {
+      this.buf = Arrays.copyOf(this.buf,
+          Math.max(2 * this.buf.length, this.count + n));
+    } // if
+  } // makeRoom(int)
+
+  /**
+   * Hand the buffered bytes to the stream.
+   */
+  void drain() throws IOException {
+    if (this.count > 0) {
+      this.out.write(this.buf, 0, this.count);
+      this.written += this.count;
+      this.count = 0;
+    } // if
+  } // drain()
+
+  /**
+   * Give our buffer back to this thread's pool, unless it has grown too
+   * large to keep.
+   */
+  void release() {
+    if (this.buf.length <= MAX_POOLED_SIZE) {
+      POOL.set(this.buf);
+    } // if
+    this.buf = null;
+  } // release()
+
+} // class JSONByteWriter
@@ -0,0 +1,406 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.text.ParseException;
+import java.util.Arrays;
+
+/**
+ * Character input for the JSON parser. Rather than calling
+ * Reader.read() once per character, we pull input into a char buffer
+ * in bulk and walk through it with an index. Strings are scanned in
+ * place, with no Reader at all.
+ *
+ * @author Marina Ananias
+ * @author Linda Jing
+ * @author Keely Miyamoto
+ */
+public class JSONCharLexer extends JSONLexer {
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * Where we get more characters from, or null if everything is
+   * already in the buffer.
+   */
+  Reader source;
+
+  /**
+   * The characters we have read but not yet consumed.
+   */
+  char[] buf;
+
+  /**
+   * The index of the next unconsumed character in buf.
+   */
+  int index;
+
+  /**
+   * The number of valid characters in buf.
+   */
+  int limit;
+
+  /**
+   * The number of characters that came before buf[0] in the input.
+   */
+  int offset;
+
+  /**
+   * The same as offset, but kept as a long so that it does not wrap
+   * around on inputs of 2GB or more.
+   */
+  long base;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Build a lexer that reads from a Reader.
+   */
+  public JSONCharLexer(Reader source) {
+    this.source = source;
+    this.buf = new char[BUFFER_SIZE];
+    this.index = 0;
+    this.limit = 0;
+    this.offset = 0;
+    this.base = 0;
+  } // JSONCharLexer(Reader)
+
+  /**
+   * Build a lexer that scans a string directly.
+   */
+  public JSONCharLexer(String source) {
+    this.source = null;
+    this.buf = source.toCharArray();
+    this.index = 0;
+    this.limit = this.buf.length;
+    this.offset = 0;
+    this.base = 0;
+  } // JSONCharLexer(String)
+
+  /**
+   * Build a lexer that scans chars[start..end), where chars is the
+   * whole input.
+   */
+  JSONCharLexer(char[] chars, int start, int end) {
+    this.source = null;
+    this.buf = chars;
+    this.index = start;
+    this.limit = end;
+    this.offset = 0;
+    this.base = 0;
+  } // JSONCharLexer(char[], int, int)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Get the next character, or -1 at the end of the input.
+   */
+  public int read() throws IOException {
+    if ((this.index >= this.limit) && !fill()) {
+      return -1;
+    } // if
+    return this.buf[this.index++];
+  } // read()
+
+  /**
+   * Get the next character that is not whitespace, or -1 at the end
+   * of the input.
+   */
+  public int skipWhitespace() throws IOException {
+    do {
+      char[] chars = this.buf;
+      int i = this.index;
+      int end = this.limit;
+      while (i < end) {
+        char ch = chars[i++];
+        if (!JSON.isWhitespace(ch)) {
+          this.index = i;
+          return ch;
+        } // if
+      } // while
+      this.index = i;
+    } while (fill());
+    return -1;
+  } // skipWhitespace()
+
+  /**
+   * Read the rest of a string whose opening quote has just been read,
+   * decoding any escape sequences. Strings without escapes are copied
+   * straight out of the buffer.
+   */
+  public String readString() throws ParseException, IOException {
+    StringBuilder builder = null;
+    int start = this.index;
+    int i = start;
+    while (true) {
+      // Scan for the closing quote, a backslash, or a control character.
+      char[] chars = this.buf;
+      int end = this.limit;
+      char ch = 0;
+      while ((i < end) && ((ch = chars[i]) != '\"') && (ch != '\\') && (ch >= 0x20)) {
+        i++;
+      } // while
+      if (i >= end) {
+        // The string continues past the buffer, so keep what we have.
+        this.index = i;
+        int shift = start;
+        if (!fill(start)) {
+          throw new ParseException("Unterminated string", position());
+        } // if
+        start -= shift;
+        i -= shift;
+      } else if (ch == '\"') {
+        this.index = i + 1;
+        if (builder == null) {
+          return new String(chars, start, i - start);
+        } // if
+        return builder.append(chars, start, i - start).toString();
+      } else if (ch == '\\') {
+        if (builder == null) {
+          builder = new StringBuilder(Math.max(16, 2 * (i - start)));
+        } // if
+        builder.append(chars, start, i - start);
+        this.index = i + 1;
+        builder.append(readEscape());
+        start = this.index;
+        i = start;
+      } else {
+        this.index = i;
+        throw new ParseException("Unescaped control character in string", position());
+      } // if
+    } // while
+  } // readString()
+
+  /**
+   * Read the rest of a key whose opening quote has just been read. A
+   * key that is already in the buffer and has no escapes is looked up
+   * in place, so a cached key costs no allocation.
+   */
+  public JSONString readKey(JSONKeyCache cache) throws ParseException, IOException {
+    char[] chars = this.buf;
+    int start = this.index;
+    int end = this.limit;
+    int i = start;
+    char ch = 0;
+    while ((i < end) && ((ch = chars[i]) != '\"') && (ch != '\\') && (ch >= 0x20)) {
+      i++;
+    } // while
+    if ((i < end) && (ch == '\"')) {
+      this.index = i + 1;
+      return cache.get(chars, start, i);
+    } // if
+    return cache.get(readString());
+  } // readKey(JSONKeyCache)
+
+  /**
+   * Read a number whose first character has just been read.
+   */
+  public JSONToken readNumber() throws ParseException, IOException {
+    int start = this.index - 1;
+    int i = this.index;
+    boolean real = false;
+    while (true) {
+      char[] chars = this.buf;
+      int end = this.limit;
+      while (i < end) {
+        char ch = chars[i];
+        if ((ch == '.') || (ch == 'e') || (ch == 'E')) {
+          real = true;
+        } else if (!(((ch >= '0') && (ch <= '9')) || (ch == '-') || (ch == '+'))) {
+          break;
+        } // if
+        i++;
+      } // while
+      if (i < end) {
+        break;
+      } // if
+      // The number may continue past the buffer, so keep what we have.
+      this.index = i;
+      int before = this.offset;
+      boolean more = fill(start);
+      // Even at the end of the input, fill may have moved what we kept.
+      start -= this.offset - before;
+      i -= this.offset - before;
+      if (!more) {
+        break;
+      } // if
+    } // while
+    this.index = i;
+    if (!isNumber(this.buf, start, i)) {
+      throw new ParseException("Invalid number", this.offset + start);
+    } // if
+    if (!real && ((i - start) <= 18)) {
+      return setInteger(parseLong(this.buf, start, i));
+    } // if
+    return setNumber(new String(this.buf, start, i - start), real);
+  } // readNumber()
+
+  /**
+   * Skip the rest of an array or hash whose opening bracket has just
+   * been read. Only the nesting depth and whether we are in a string
+   * are tracked, so the contents are not checked.
+   */
+  public void skipContainer() throws ParseException, IOException {
+    int depth = 1;
+    boolean inString = false;
+    boolean escaped = false;
+    do {
+      char[] chars = this.buf;
+      int i = this.index;
+      int end = this.limit;
+      while (i < end) {
+        int ch = chars[i++];
+        if (inString) {
+          if (escaped) {
+            escaped = false;
+          } else if (ch == '\\') {
+            escaped = true;
+          } else if (ch == '\"') {
+            inString = false;
+          } // if
+        } else if (ch == '\"') {
+          inString = true;
+        } else if ((ch == '[') || (ch == '{')) {
+          depth++;
+        } else if (((ch == ']') || (ch == '}')) && (--depth == 0)) {
+          this.index = i;
+          return;
+        } // if
+      } // while
+      this.index = i;
+    } while (fill());
+    throw new ParseException("Unexpected end of file", position());
+  } // skipContainer()
+
+  /**
+   * Get a new lexer that reads the input between two positions.
+   */
+  public JSONLexer slice(int start, int end) {
+    if (this.source != null) {
+      return super.slice(start, end);
+    } // if
+    return new JSONCharLexer(this.buf, start, end);
+  } // slice(int, int)
+
+  /**
+   * Get the position of the next character in the input.
+   */
+  public int position() {
+    return this.offset + this.index;
+  } // position()
+
+  /**
+   * Get the number of characters read so far.
+   */
+  public long consumed() {
+    return this.base + this.index;
+  } // consumed()
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Replace the consumed contents of the buffer with more input.
+   * Returns false if there is no more input.
+   */
+  boolean fill() throws IOException {
+    return fill(this.limit);
+  } // fill()
+
+  /**
+   * Read more input, keeping the characters from keep onward. Those
+   * characters move to the front of the buffer, so index (and anything
+   * the caller remembers) moves back by keep. Returns false if there is
+   * no more input.
+   */
+  boolean fill(int keep) throws IOException {
+    if (this.source == null) {
+      return false;
+    } // if
+    int kept = this.limit - keep;
+    if (kept == this.buf.length) {
+      this.buf = Arrays.copyOf(this.buf, 2 * this.buf.length);
+    } else if (kept > 0) {
+      System.arraycopy(this.buf, keep, this.buf, 0, kept);
+    } // if
+    this.offset += keep;
+    this.base += keep;
+    this.index -= keep;
+    this.limit = kept;
+    int count;
+    do {
+      count = this.source.read(this.buf, kept, this.buf.length - kept);
+    } while (count == 0);
+    if (count < 0) {
+      return false;
+    } // if
+    this.limit += count;
+    return true;
+  } // fill(int)
+
+  /**
+   * Determine if chars[start..end) is a JSON number.
+   */
+  static boolean isNumber(char[] chars, int start, int end) {
+    int i = start;
+    if ((i < end) && (chars[i] == '-')) {
+      i++;
+    } // if
+    // Integer part: a single 0 or digits without a leading 0.
+    if ((i < end) && (chars[i] == '0')) {
+      i++;
+    } else if ((i < end) && (chars[i] >= '1') && (chars[i] <= '9')) {
+      i = skipDigits(chars, i, end);
+    } else {
+      return false;
+    } // if
+    // Optional fraction.
+    if ((i < end) && (chars[i] == '.')) {
+      int digits = ++i;
+      i = skipDigits(chars, i, end);
+      if (i == digits) {
+        return false;
+      } // if
+    } // if
+    // Optional exponent.
+    if ((i < end) && ((chars[i] == 'e') || (chars[i] == 'E'))) {
+      i++;
+      if ((i < end) && ((chars[i] == '+') || (chars[i] == '-'))) {
+        i++;
+      } // if
+      int digits = i;
+      i = skipDigits(chars, i, end);
+      if (i == digits) {
+        return false;
+      } // if
+    } // if
+    return i == end;
+  } // isNumber(char[], int, int)
+
+  /**
+   * Convert chars[start..end), an integer of at most 18 digits, to a long.
+   */
+  static long parseLong(char[] chars, int start, int end) {
+    boolean negative = (chars[start] == '-');
+    long value = 0;
+    for (int i = negative ? start + 1 : start; i < end; i++) {
+      value = 10 * value + (chars[i] - '0');
+    } // for
+    return negative ? -value : value;
+  } // parseLong(char[], int, int)
+
+  /**
+   * Find the first non-digit in chars[i..end).
+   */
+  static int skipDigits(char[] chars, int i, int end) {
+    while ((i < end) && (chars[i] >= '0') && (chars[i] <= '9')) {
+      i++;
+    } // while
+    return i;
+  } // skipDigits(char[], int, int)
+
+} // class JSONCharLexer
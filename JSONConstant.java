@@ -89,8 +89,7 @@ public class JSONConstant implements JSONValue {
    * Write the value as JSON.
    */
   public void writeJSON(PrintWriter pen) {
-    pen.print(this.toString());
-    pen.flush();
+    JSONWriter.writeJSON(this, pen);
   } // writeJSON(PrintWriter)
 
   /**
@@ -0,0 +1,361 @@
+import java.io.IOException;
+import java.text.ParseException;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Instrumentation for parsing and writing. Each top-level parse or
+ * write, successful or not, reports to the installed JSONListener (if
+ * any) and to Flight Recorder (if it is recording our events). When
+ * neither is listening, all we pay is two volatile reads: we allocate
+ * nothing, and the reader counts nothing. When someone is listening,
+ * the reader counts values as it reads their tokens, so the tree is
+ * never walked a second time.
+ *
+ * @author Marina Ananias
+ * @author Linda Jing
+ * @author Keely Miyamoto
+ */
+class JSONEvents {
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The listener, or null if there is none.
+   */
+  static volatile JSONListener listener;
+
+  // +----------------+----------------------------------------------
+  // | Static methods |
+  // +----------------+
+
+  /**
+   * Parse a tree with parser, reporting it as operation on source (a
+   * file name, or null).
+   */
+  static JSONValue parse(String operation, String source, JSONParser parser)
+      throws ParseException, IOException {
+    Probe probe = startParse(parser.reader);
+    if (probe == null) {
+      return parser.parse();
+    } // if
+    try {
+      JSONValue result = parser.parse();
+      finishParse(probe, parser.reader.consumed(), operation, source, null);
+      return result;
+    } catch (ParseException | IOException | RuntimeException | Error e) {
+      finishParse(probe, parser.reader.consumed(), operation, source, e);
+      throw e;
+    } // try
+  } // parse(String, String, JSONParser)
+
+  /**
+   * Report the tokens of a document to a handler, reporting that as
+   * operation on source.
+   */
+  static void accept(String operation, String source, JSONReader reader, JSONHandler handler)
+      throws ParseException, IOException {
+    Probe probe = startParse(reader);
+    if (probe == null) {
+      reader.accept(handler);
+      return;
+    } // if
+    try {
+      reader.accept(handler);
+      finishParse(probe, reader.consumed(), operation, source, null);
+    } catch (ParseException | IOException | RuntimeException | Error e) {
+      finishParse(probe, reader.consumed(), operation, source, e);
+      throw e;
+    } // try
+  } // accept(String, String, JSONReader, JSONHandler)
+
+  /**
+   * Read a document as an object of a given type (making sure nothing
+   * but whitespace follows it), reporting that as operation on source.
+   */
+  static <T> T bind(String operation, String source, JSONReader reader, Class<T> type)
+      throws ParseException, IOException {
+    Probe probe = startParse(reader);
+    if (probe == null) {
+      T result = JSONBinder.read(reader, type);
+      reader.nextToken();
+      return result;
+    } // if
+    try {
+      T result = JSONBinder.read(reader, type);
+      reader.nextToken();
+      finishParse(probe, reader.consumed(), operation, source, null);
+      return result;
+    } catch (ParseException | IOException | RuntimeException | Error e) {
+      finishParse(probe, reader.consumed(), operation, source, e);
+      throw e;
+    } // try
+  } // bind(String, String, JSONReader, Class<T>)
+
+  /**
+   * Write a value (a JSONValue, or anything the binder can write) with
+   * writer and flush it, reporting that as operation.
+   */
+  static void write(String operation, JSONWriter writer, Object value) throws IOException {
+    Probe probe = startWrite();
+    if (probe == null) {
+      writeValue(writer, value);
+      return;
+    } // if
+    try {
+      writeValue(writer, value);
+      finishWrite(probe, writer.written, operation, null);
+    } catch (IOException | RuntimeException | Error e) {
+      finishWrite(probe, writer.written + writer.count, operation, e);
+      throw e;
+    } // try
+  } // write(String, JSONWriter, Object)
+
+  /**
+   * Start timing a parse from reader (which starts counting what it
+   * reads), or return null if nobody is listening.
+   */
+  static Probe startParse(JSONReader reader) {
+    Probe probe = startParse();
+    if ((probe != null) && (reader != null)) {
+      reader.stats = probe.stats;
+    } // if
+    return probe;
+  } // startParse(JSONReader)
+
+  /**
+   * Start timing a parse, or return null if nobody is listening. The
+   * caller arranges for probe.stats to be filled in.
+   */
+  static Probe startParse() {
+    JSONListener listener = JSONEvents.listener;
+    boolean record = FlightRecorder.isInitialized() && Types.PARSE.isEnabled();
+    if ((listener == null) && !record) {
+      return null;
+    } // if
+    return new Probe(listener, record ? new ParseEvent() : null, new JSONStats());
+  } // startParse()
+
+  /**
+   * Finish timing a parse that read input bytes (or characters) and
+   * either succeeded (if failure is null) or failed.
+   */
+  static void finishParse(Probe probe, long input, String operation, String source,
+      Throwable failure) {
+    long nanos = System.nanoTime() - probe.start;
+    JSONStats stats = probe.stats;
+    stats.input = input;
+    if (probe.event != null) {
+      ParseEvent event = (ParseEvent) probe.event;
+      event.end();
+      if (event.shouldCommit()) {
+        event.operation = operation;
+        event.source = source;
+        event.input = stats.input;
+        event.hashes = stats.hashes;
+        event.arrays = stats.arrays;
+        event.strings = stats.strings;
+        event.numbers = stats.integers + stats.reals;
+        event.maxDepth = stats.maxDepth;
+        event.longestString = stats.longestString;
+        event.failed = (failure != null);
+        event.error = (failure == null) ? null : failure.toString();
+        event.commit();
+      } // if
+    } // if
+    if (probe.listener != null) {
+      if (failure == null) {
+        probe.listener.parsed(operation, stats, nanos);
+      } else {
+        probe.listener.parseFailed(operation, stats, failure, nanos);
+      } // if
+    } // if
+  } // finishParse(Probe, long, String, String, Throwable)
+
+  /**
+   * Start timing a write, or return null if nobody is listening.
+   */
+  static Probe startWrite() {
+    JSONListener listener = JSONEvents.listener;
+    boolean record = FlightRecorder.isInitialized() && Types.WRITE.isEnabled();
+    if ((listener == null) && !record) {
+      return null;
+    } // if
+    return new Probe(listener, record ? new WriteEvent() : null, null);
+  } // startWrite()
+
+  /**
+   * Finish timing a write of length characters (or bytes) that either
+   * succeeded (if failure is null) or failed.
+   */
+  static void finishWrite(Probe probe, long length, String operation, Throwable failure) {
+    long nanos = System.nanoTime() - probe.start;
+    if (probe.event != null) {
+      WriteEvent event = (WriteEvent) probe.event;
+      event.end();
+      if (event.shouldCommit()) {
+        event.operation = operation;
+        event.length = length;
+        event.failed = (failure != null);
+        event.error = (failure == null) ? null : failure.toString();
+        event.commit();
+      } // if
+    } // if
+    if (probe.listener != null) {
+      if (failure == null) {
+        probe.listener.written(operation, length, nanos);
+      } else {
+        probe.listener.writeFailed(operation, length, failure, nanos);
+      } // if
+    } // if
+  } // finishWrite(Probe, long, String, Throwable)
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Write a value with writer and flush it.
+   */
+  static void writeValue(JSONWriter writer, Object value) throws IOException {
+    if (value instanceof JSONValue) {
+      writer.write((JSONValue) value);
+    } else {
+      JSONBinder.write(value, writer);
+    } // if
+    writer.flush();
+  } // writeValue(JSONWriter, Object)
+
+  // +---------------+-----------------------------------------------
+  // | Inner classes |
+  // +---------------+
+
+  /**
+   * What we need to finish reporting a parse or write that someone is
+   * listening for.
+   */
+  static class Probe {
+    /**
+     * The listener, or null if only Flight Recorder is listening.
+     */
+    JSONListener listener;
+
+    /**
+     * The Flight Recorder event, or null if it is not being recorded.
+     */
+    Event event;
+
+    /**
+     * What the parse has read so far, or null for a write.
+     */
+    JSONStats stats;
+
+    /**
+     * When we started, from System.nanoTime.
+     */
+    long start;
+
+    /**
+     * Start timing.
+     */
+    Probe(JSONListener listener, Event event, JSONStats stats) {
+      this.listener = listener;
+      this.event = event;
+      this.stats = stats;
+      if (event != null) {
+        event.begin();
+      } // if
+      this.start = System.nanoTime();
+    } // Probe(JSONListener, Event, JSONStats)
+  } // class Probe
+
+  /**
+   * The types of our events. They are only looked up once Flight
+   * Recorder is running, so that we never start it ourselves.
+   */
+  static class Types {
+    /**
+     * The type of ParseEvent.
+     */
+    static final EventType PARSE = EventType.getEventType(ParseEvent.class);
+
+    /**
+     * The type of WriteEvent.
+     */
+    static final EventType WRITE = EventType.getEventType(WriteEvent.class);
+  } // class Types
+
+  /**
+   * A Flight Recorder event for one top-level parse.
+   */
+  @Name("mpjson.Parse")
+  @Label("JSON Parse")
+  @Category("JSON")
+  @Description("Parsing a JSON document")
+  static class ParseEvent extends Event {
+    @Label("Operation")
+    String operation;
+
+    @Label("Source")
+    String source;
+
+    @Label("Input")
+    @Description("Bytes, or characters for text input, read")
+    @DataAmount
+    long input;
+
+    @Label("Hashes")
+    long hashes;
+
+    @Label("Arrays")
+    long arrays;
+
+    @Label("Strings")
+    long strings;
+
+    @Label("Numbers")
+    long numbers;
+
+    @Label("Max Depth")
+    int maxDepth;
+
+    @Label("Longest String")
+    int longestString;
+
+    @Label("Failed")
+    boolean failed;
+
+    @Label("Error")
+    String error;
+  } // class ParseEvent
+
+  /**
+   * A Flight Recorder event for writing one value.
+   */
+  @Name("mpjson.Write")
+  @Label("JSON Write")
+  @Category("JSON")
+  @Description("Writing a JSON value")
+  static class WriteEvent extends Event {
+    @Label("Operation")
+    String operation;
+
+    @Label("Length")
+    @Description("Characters, or bytes for UTF-8 output, written")
+    long length;
+
+    @Label("Failed")
+    boolean failed;
+
+    @Label("Error")
+    String error;
+  } // class WriteEvent
+
+} // class JSONEvents
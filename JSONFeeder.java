@@ -0,0 +1,419 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.text.ParseException;
+import java.util.Arrays;
+
+/**
+ * A non-blocking JSON parser for input that arrives in pieces, such as
+ * a request body read from a socket. Bytes are handed over with feed as
+ * they arrive; nextToken and nextValue never wait for more, but return
+ * NEED_MORE_INPUT (or null) when the bytes so far end in the middle of
+ * a token. A partial token is kept, along with how far we have scanned
+ * it and whether that point is inside a string or just after a
+ * backslash. New bytes are scanned from there, and the token is only
+ * lexed again once something has arrived that can end it. So a long
+ * string fed in many small pieces is scanned once as it arrives and
+ * lexed a bounded number of times, rather than once per piece.
+ *
+ * @author Marina Ananias
+ * @author Linda Jing
+ * @author Keely Miyamoto
+ */
+public class JSONFeeder {
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The bytes that have not been consumed yet.
+   */
+  FeedLexer lexer;
+
+  /**
+   * The reader that tokenizes those bytes.
+   */
+  JSONReader reader;
+
+  /**
+   * The parser that builds scalar values for nextValue.
+   */
+  JSONParser parser;
+
+  /**
+   * The arrays and hashes that nextValue has started but not finished,
+   * innermost last.
+   */
+  JSONValue[] open;
+
+  /**
+   * For each open hash, the key whose value we are waiting for.
+   */
+  JSONString[] keys;
+
+  /**
+   * The number of open arrays and hashes.
+   */
+  int depth;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Build a parser with no input yet.
+   */
+  public JSONFeeder() {
+    this.lexer = new FeedLexer();
+    this.reader = new JSONReader(this.lexer);
+    this.parser = new JSONParser(this.reader);
+    this.open = new JSONValue[16];
+    this.keys = new JSONString[16];
+    this.depth = 0;
+  } // JSONFeeder()
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Add the remaining bytes of a buffer (UTF-8) to the input. The
+   * bytes are copied, so the buffer may be reused.
+   */
+  public void feed(ByteBuffer chunk) {
+    this.lexer.feed(chunk);
+  } // feed(ByteBuffer)
+
+  /**
+   * Add some bytes (UTF-8) to the input.
+   */
+  public void feed(byte[] bytes, int offset, int length) {
+    this.lexer.feed(ByteBuffer.wrap(bytes, offset, length));
+  } // feed(byte[], int, int)
+
+  /**
+   * Note that no more input is coming, so that whatever remains is
+   * either finished (such as a number at the very end) or an error.
+   */
+  public void endOfInput() {
+    this.lexer.finished = true;
+  } // endOfInput()
+
+  /**
+   * Read the next token, or return NEED_MORE_INPUT if the input so far
+   * ends before the token does. After the single top-level value (and
+   * endOfInput), returns END.
+   */
+  public JSONToken nextToken() throws ParseException {
+    if (!this.lexer.ready()) {
+      return JSONToken.NEED_MORE_INPUT;
+    } // if
+    int depth = this.reader.depth;
+    byte scope = this.reader.scopes[depth - 1];
+    JSONToken token = this.reader.token;
+    this.lexer.mark = this.lexer.index;
+    try {
+      JSONToken next = this.reader.nextToken();
+      this.lexer.scanned = -1;
+      return next;
+    } catch (NeedMoreInput e) {
+      // Put everything back the way it was before this token.
+      this.reader.depth = depth;
+      this.reader.scopes[depth - 1] = scope;
+      this.reader.token = token;
+      this.lexer.index = this.lexer.mark;
+      // Remember how far the partial token goes, so that more input
+      // only has to be scanned from here.
+      if (this.lexer.scanned < 0) {
+        this.lexer.scanned = this.lexer.mark;
+        this.lexer.state = FeedLexer.BETWEEN;
+      } // if
+      while (this.lexer.scan()) {
+      } // while
+      return JSONToken.NEED_MORE_INPUT;
+    } catch (IOException e) {
+      // We never read from anywhere, so this can't happen.
+      throw new UncheckedIOException(e);
+    } // try
+  } // nextToken()
+
+  /**
+   * Get the top-level value, once all of it has arrived, or null if it
+   * hasn't yet. The arrays and hashes inside it are built as their
+   * tokens arrive, so a value is never parsed twice.
+   */
+  public JSONValue nextValue() throws ParseException {
+    while (true) {
+      JSONToken token = nextToken();
+      JSONValue value;
+      switch (token) {
+        case NEED_MORE_INPUT:
+        case END:
+          return null;
+        case START_ARRAY:
+          push(new JSONArray());
+          continue;
+        case START_HASH:
+          push(new JSONHash());
+          continue;
+        case KEY:
+          this.keys[this.depth - 1] = this.reader.getKey();
+          continue;
+        case END_ARRAY:
+        case END_HASH:
+          value = this.open[--this.depth];
+          this.open[this.depth] = null;
+          break;
+        default:
+          try {
+            value = this.parser.parseValue(token);
+          } catch (IOException e) {
+            // We never read from anywhere, so this can't happen.
+            throw new UncheckedIOException(e);
+          } // try
+          break;
+      } // switch
+      if (this.depth == 0) {
+        return value;
+      } // if
+      JSONValue parent = this.open[this.depth - 1];
+      if (parent instanceof JSONArray) {
+        ((JSONArray) parent).add(value);
+      } else {
+        ((JSONHash) parent).set(this.keys[this.depth - 1], value);
+      } // if
+    } // while
+  } // nextValue()
+
+  /**
+   * Get the text of the most recent KEY or STRING token.
+   */
+  public String getString() {
+    return this.reader.getString();
+  } // getString()
+
+  /**
+   * Get the value of the most recent INTEGER or REAL token.
+   */
+  public JSONValue getNumber() {
+    return this.reader.getNumber();
+  } // getNumber()
+
+  /**
+   * Get how many arrays and hashes we are inside of.
+   */
+  public int currentDepth() {
+    return this.reader.currentDepth();
+  } // currentDepth()
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Start building an array or hash.
+   */
+  void push(JSONValue container) {
+    if (this.depth == this.open.length) {
+      this.open = Arrays.copyOf(this.open, 2 * this.depth);
+      this.keys = Arrays.copyOf(this.keys, 2 * this.depth);
+    } // if
+    this.open[this.depth++] = container;
+  } // push(JSONValue)
+
+  // +---------------+-----------------------------------------------
+  // | Inner classes |
+  // +---------------+
+
+  /**
+   * Thrown (without a stack trace) when the lexer runs out of bytes
+   * before the input has ended.
+   */
+  static class NeedMoreInput extends RuntimeException {
+    /**
+     * The version of the serialized form.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The one instance. It carries no state, so there is no need for
+     * more.
+     */
+    static final NeedMoreInput INSTANCE = new NeedMoreInput();
+
+    /**
+     * Build the exception without a message, cause, or stack trace,
+     * which would only cost time.
+     */
+    NeedMoreInput() {
+      super(null, null, false, false);
+    } // NeedMoreInput()
+  } // class NeedMoreInput
+
+  /**
+   * A byte lexer whose buffer grows as bytes are fed to it. When it
+   * runs out of bytes, it gives up on the current token rather than
+   * waiting, unless it has been told that the input has ended.
+   */
+  static class FeedLexer extends JSONByteLexer {
+    /**
+     * Scanning state: between tokens (in whitespace or punctuation).
+     */
+    static final int BETWEEN = 0;
+
+    /**
+     * Scanning state: inside a string.
+     */
+    static final int IN_STRING = 1;
+
+    /**
+     * Scanning state: inside a string, just after a backslash.
+     */
+    static final int IN_ESCAPE = 2;
+
+    /**
+     * Scanning state: inside a number.
+     */
+    static final int IN_NUMBER = 3;
+
+    /**
+     * Scanning state: inside true, false, or null.
+     */
+    static final int IN_WORD = 4;
+
+    /**
+     * Whether all of the input has arrived.
+     */
+    boolean finished;
+
+    /**
+     * The index of the start of the token being read. Bytes before
+     * this are thrown away when more are fed.
+     */
+    int mark;
+
+    /**
+     * If the last token ran out of input, the index of the first byte
+     * we have not scanned yet; otherwise -1.
+     */
+    int scanned = -1;
+
+    /**
+     * The scanning state at scanned.
+     */
+    int state;
+
+    FeedLexer() {
+      super(new byte[BUFFER_SIZE], 0, 0, 0);
+    } // FeedLexer()
+
+    /**
+     * Add bytes, first dropping the ones that have been consumed.
+     */
+    void feed(ByteBuffer chunk) {
+      int count = chunk.remaining();
+      if (this.limit + count > this.buf.length) {
+        // Only make room when we run out, and leave at least half the
+        // buffer free, so a long token is not copied on every feed.
+        int keep = this.index;
+        int kept = this.limit - keep;
+        int needed = kept + count;
+        byte[] target = this.buf;
+        if (2 * needed > this.buf.length) {
+          target = new byte[Math.max(2 * needed, 2 * this.buf.length)];
+        } // if
+        System.arraycopy(this.buf, keep, target, 0, kept);
+        this.buf = target;
+        this.offset += keep;
+        this.index = 0;
+        this.mark -= keep;
+        if (this.scanned >= 0) {
+          this.scanned -= keep;
+        } // if
+        this.limit = kept;
+      } // if
+      chunk.get(this.buf, this.limit, count);
+      this.limit += count;
+    } // feed(ByteBuffer)
+
+    /**
+     * Determine if it is worth lexing again: there is no partial token,
+     * the input has ended, or something has arrived that may end the
+     * partial token.
+     */
+    boolean ready() {
+      return (this.scanned < 0) || this.finished || scan();
+    } // ready()
+
+    /**
+     * Scan the bytes that have arrived since we last looked, stopping
+     * just after the end of a string, number, word, or piece of
+     * punctuation (and returning true) or at the end of the input so
+     * far (and returning false).
+     */
+    boolean scan() {
+      int i = this.scanned;
+      int state = this.state;
+      while (i < this.limit) {
+        byte b = this.buf[i++];
+        switch (state) {
+          case IN_STRING:
+            if (b == '\\') {
+              state = IN_ESCAPE;
+            } else if (b == '"') {
+              return stop(i, BETWEEN);
+            } // if
+            break;
+          case IN_ESCAPE:
+            state = IN_STRING;
+            break;
+          case IN_NUMBER:
+            if (((b < '0') || (b > '9')) && (b != '.') && (b != 'e') && (b != 'E')
+                && (b != '+') && (b != '-')) {
+              return stop(i - 1, BETWEEN);
+            } // if
+            break;
+          case IN_WORD:
+            if ((b < 'a') || (b > 'z')) {
+              return stop(i - 1, BETWEEN);
+            } // if
+            break;
+          default:
+            if (b == '"') {
+              state = IN_STRING;
+            } else if ((b == '-') || ((b >= '0') && (b <= '9'))) {
+              state = IN_NUMBER;
+            } else if ((b >= 'a') && (b <= 'z')) {
+              state = IN_WORD;
+            } else if (!JSON.isWhitespace(b)) {
+              return stop(i, BETWEEN);
+            } // if
+            break;
+        } // switch
+      } // while
+      stop(i, state);
+      return false;
+    } // scan()
+
+    /**
+     * Remember where scanning stopped and in what state.
+     */
+    boolean stop(int position, int state) {
+      this.scanned = position;
+      this.state = state;
+      return true;
+    } // stop(int, int)
+
+    /**
+     * We never read more ourselves: either the input has ended or we
+     * have to wait to be fed.
+     */
+    boolean fill(int keep) {
+      if (this.finished) {
+        return false;
+      } // if
+      throw NeedMoreInput.INSTANCE;
+    } // fill(int)
+  } // class FeedLexer
+
+} // class JSONFeeder
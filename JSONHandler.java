@@ -0,0 +1,82 @@
+import java.math.BigInteger;
+
+/**
+ * Callbacks for a push-style parse. JSON.parse(source, handler) calls
+ * these methods in document order and never builds JSONValue objects,
+ * so a handler that only needs a few numbers or strings allocates very
+ * little.
+ *
+ * @author Marina Ananias
+ * @author Linda Jing
+ * @author Keely Miyamoto
+ */
+public interface JSONHandler {
+
+  /**
+   * Called at the '[' that starts an array.
+   */
+  public void startArray();
+
+  /**
+   * Called at the ']' that ends an array.
+   */
+  public void endArray();
+
+  /**
+   * Called at the '{' that starts a hash.
+   */
+  public void startHash();
+
+  /**
+   * Called at the '}' that ends a hash.
+   */
+  public void endHash();
+
+  /**
+   * Called with the key of each hash entry, just before its value.
+   */
+  public void key(String key);
+
+  /**
+   * Called with a string value.
+   */
+  public void stringValue(String value);
+
+  /**
+   * Called with an integer that fits in a long.
+   */
+  public void numberValue(long value);
+
+  /**
+   * Called with an integer that does not fit in a long.
+   */
+  public void numberValue(BigInteger value);
+
+  /**
+   * Called with a number that has a fraction or exponent, as the
+   * nearest double (by the default numberValue(String)).
+   */
+  public void numberValue(double value);
+
+  /**
+   * Called with a number that has a fraction or exponent, as its
+   * digits exactly as they appear in the input. The default passes the
+   * nearest double to numberValue(double); override this to keep every
+   * digit (e.g., with new BigDecimal(digits)), since a double rounds
+   * 0.10000000000000000001 to 0.1 and 1e400 to Infinity.
+   */
+  public default void numberValue(String digits) {
+    numberValue(JSONReal.parseDouble(digits));
+  } // numberValue(String)
+
+  /**
+   * Called with true or false.
+   */
+  public void booleanValue(boolean value);
+
+  /**
+   * Called with null.
+   */
+  public void nullValue();
+
+} // interface JSONHandler
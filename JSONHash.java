@@ -1,12 +1,18 @@
 import java.io.PrintWriter;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
 /**
  * JSON hashes/objects.
- * 
+ *
+ * The entries live in three parallel arrays (keys, values, and cached
+ * key hashes) in insertion order, so iteration and output follow the
+ * order in which keys were first set. Most hashes are small, so up to
+ * COMPACT_LIMIT entries we just scan those arrays. Past that, a separate
+ * open-addressing table with a power-of-two capacity maps hashes to
+ * entry indices, using linear probing.
+ *
  * @author Marina Ananias
  * @author Linda Jing
  * @author Keely Miyamoto
@@ -22,6 +28,31 @@ public class JSONHash implements JSONValue {
    */
   static final double LOAD_FACTOR = 0.5;
 
+  /**
+   * The number of entries we make room for when the first key is set.
+   */
+  static final int INITIAL_CAPACITY = 4;
+
+  /**
+   * The most entries we keep without building a table.
+   */
+  static final int COMPACT_LIMIT = 8;
+
+  /**
+   * The keys of an empty hash.
+   */
+  static final JSONString[] NO_KEYS = new JSONString[0];
+
+  /**
+   * The values of an empty hash.
+   */
+  static final JSONValue[] NO_VALUES = new JSONValue[0];
+
+  /**
+   * The hashes of an empty hash.
+   */
+  static final int[] NO_HASHES = new int[0];
+
   // +--------+------------------------------------------------------
   // | Fields |
   // +--------+
@@ -33,11 +64,33 @@ public class JSONHash implements JSONValue {
   int size = 0;
 
   /**
-   * The array that we use to store the ArrayList of key/value pairs. (We use an array, rather than
-   * an ArrayList, because we want to control expansion and ArrayLists of ArrayLists are just
-   * weird.)
+   * The keys, in insertion order.
+   */
+  JSONString[] keys;
+
+  /**
+   * The values, in the same order as the keys.
    */
-  Object[] buckets;
+  JSONValue[] values;
+
+  /**
+   * The (spread) hash codes of the keys, in the same order as the keys.
+   */
+  int[] hashes;
+
+  /**
+   * The open-addressing table, or null while the hash is small. Each
+   * slot holds one more than the index of an entry, or 0 if the slot is
+   * empty. The length is always a power of two.
+   */
+  int[] table;
+
+  /**
+   * If the hash has not been parsed yet, a lexer for its part of the
+   * input; otherwise null. It is volatile so that once a thread sees
+   * null, it also sees the contents that were parsed.
+   */
+  volatile JSONLexer lazy;
 
   // +--------------+------------------------------------------------
   // | Constructors |
@@ -50,6 +103,15 @@ public class JSONHash implements JSONValue {
     this.clear();
   } // JSONHash
 
+  /**
+   * Build a hash whose entries will be parsed from source when they are
+   * first needed.
+   */
+  JSONHash(JSONLexer source) {
+    this.clear();
+    this.lazy = source;
+  } // JSONHash(JSONLexer)
+
   // +-------------------------+-------------------------------------
   // | Standard object methods |
   // +-------------------------+
@@ -58,27 +120,34 @@ public class JSONHash implements JSONValue {
    * Convert to a string (e.g., for printing).
    */
   public String toString() {
-    String ret = "";
-    for (int i = 0; i < this.buckets.length; i++) {
-      @SuppressWarnings("unchecked")
-      ArrayList<KVPair<JSONString, JSONValue>> alist =
-          (ArrayList<KVPair<JSONString, JSONValue>>) this.buckets[i];
-      if (alist != null) {
-        for (int j = 0; j < alist.size(); j++) {
-          KVPair<JSONString, JSONValue> pair = alist.get(j);
-          ret = ret + ", " + pair.key() + ": " + pair.value();
-        } // for each pair in the bucket
-      } // if the current bucket is not null
-    } // for each bucket
-    return "{" + ret.substring(2) + "}";
+    materialize();
+    StringBuilder ret = new StringBuilder("{");
+    for (int i = 0; i < this.size; i++) {
+      if (i > 0) {
+        ret.append(", ");
+      } // if
+      ret.append(this.keys[i]).append(": ").append(this.values[i]);
+    } // for
+    return ret.append("}").toString();
   } // toString()
 
   /**
-   * Compare to another object.
+   * Compare to another object. Two hashes are equal if they have the
+   * same keys with equal values, in any order.
    */
   public boolean equals(Object other) {
     if (other instanceof JSONHash) {
-      return (Arrays.equals(((JSONHash) other).buckets, this.buckets));
+      JSONHash hash = (JSONHash) other;
+      if (this.size() != hash.size()) {
+        return false;
+      } // if
+      for (int i = 0; i < this.size; i++) {
+        int index = hash.indexOf(this.keys[i], this.hashes[i]);
+        if ((index < 0) || !this.values[i].equals(hash.values[index])) {
+          return false;
+        } // if
+      } // for
+      return true;
     } else {
       return false;
     }
@@ -88,7 +157,12 @@ public class JSONHash implements JSONValue {
    * Compute the hash code.
    */
   public int hashCode() {
-    return this.buckets.hashCode();
+    materialize();
+    int result = 0;
+    for (int i = 0; i < this.size; i++) {
+      result += this.hashes[i] ^ this.values[i].hashCode();
+    } // for
+    return result;
   } // hashCode()
 
   // +--------------------+------------------------------------------
@@ -97,11 +171,10 @@ public class JSONHash implements JSONValue {
 
   /**
    * Write the value as JSON.
-   * 
+   *
    */
   public void writeJSON(PrintWriter pen) {
-    pen.println(this.toString());
-    pen.flush();
+    JSONWriter.writeJSON(this, pen);
   } // writeJSON(PrintWriter)
 
   /**
@@ -119,92 +192,46 @@ public class JSONHash implements JSONValue {
    * Clear the whole table.
    */
   public void clear() {
-    this.buckets = new Object[30];
+    this.keys = NO_KEYS;
+    this.values = NO_VALUES;
+    this.hashes = NO_HASHES;
+    this.table = null;
     this.size = 0;
+    this.lazy = null;
   } // clear()
 
   /**
    * Get the value associated with a key.
    */
   public JSONValue get(JSONString key) {
-    int index = find(key);
-    @SuppressWarnings("unchecked")
-    ArrayList<KVPair<JSONString, JSONValue>> alist =
-        (ArrayList<KVPair<JSONString, JSONValue>>) buckets[index];
-    if (alist == null) {
+    materialize();
+    int index = indexOf(key, spread(key.hashCode()));
+    if (index < 0) {
       throw new IndexOutOfBoundsException("Invalid key: " + key);
-    } else {
-      for (KVPair<JSONString, JSONValue> pair : alist) {
-        if (pair.key().equals(key)) {
-          return pair.value();
-        } // if
-      } // for
-      throw new IndexOutOfBoundsException("Invalid key: " + key);
-    } // get
+    } // if
+    return this.values[index];
   } // get(JSONString)
 
   /**
-   * Get all of the key/value pairs.
+   * Get all of the key/value pairs, in insertion order.
    */
   public Iterator<KVPair<JSONString, JSONValue>> iterator() {
+    materialize();
     return new Iterator<KVPair<JSONString, JSONValue>>() {
 
-      // Starting positions in array of buckets and index within that bucket.
-      int currentBucket = 0;
-      int indexInBucket = 0;
+      // The index of the next entry.
+      int next = 0;
 
       public boolean hasNext() {
-        // Check currentBucket is within bounds.
-        if (currentBucket >= buckets.length) {
-          return false;
-        } // if
-
-        // Look for next unempty bucket. If one exists, return true.
-        do {
-          currentBucket++;
-          if (buckets[currentBucket] != null) {
-            return true;
-          } // if
-        } while (currentBucket < buckets.length);
-
-        // Otherwise return false.
-        return false;
+        return this.next < size;
       } // hasNext()
 
-      @SuppressWarnings("unchecked")
       public KVPair<JSONString, JSONValue> next() throws NoSuchElementException {
-        // If there is no next bucket, throw exception.
         if (!this.hasNext()) {
           throw new NoSuchElementException();
         } // if
-
-        // If current bucket is empty, find next nonempty bucket.
-        if (buckets[currentBucket] == null) {
-          currentBucket++;
-          while (buckets[currentBucket] == null) {
-            currentBucket += 1;
-          } // while
-          indexInBucket = 0;
-        } // if
-
-        // Initialize an ArrayList for the current bucket.
-        ArrayList<KVPair<JSONString, JSONValue>> alist =
-            (ArrayList<KVPair<JSONString, JSONValue>>) buckets[currentBucket];
-        // Save next index in the current bucket.
-        int indexOfReturned = indexInBucket;
-
-        // If indexInBucket is last index in ArrayList, find next nonempty bucket.
-        if (indexInBucket == (alist.size() - 1)) {
-          indexInBucket = 0;
-          currentBucket++;
-          while ((buckets[currentBucket] == null) && (currentBucket < buckets.length)) {
-            currentBucket += 1;
-          } // while
-        } else {
-          indexInBucket++;
-        } // if
-
-        return alist.get(indexOfReturned);
+        int index = this.next++;
+        return new KVPair<JSONString, JSONValue>(keys[index], values[index]);
       } // next()
 
     }; // new Iterator
@@ -212,43 +239,52 @@ public class JSONHash implements JSONValue {
 
   /**
    * Set the value associated with a key.
-   * 
-   * @throws Exception
    */
   public void set(JSONString key, JSONValue value) {
+    materialize();
+    int hash = spread(key.hashCode());
+
+    // If we already have the key, just replace its value.
+    int index = indexOf(key, hash);
+    if (index >= 0) {
+      this.values[index] = value;
+      return;
+    } // if
+
+    // It's a new key, so add an entry.
+    if (this.size == this.keys.length) {
+      int capacity = Math.max(INITIAL_CAPACITY, 2 * this.size);
+      this.keys = Arrays.copyOf(this.keys, capacity);
+      this.values = Arrays.copyOf(this.values, capacity);
+      this.hashes = Arrays.copyOf(this.hashes, capacity);
+    } // if
+    this.keys[this.size] = key;
+    this.values[this.size] = value;
+    this.hashes[this.size] = hash;
+    ++this.size;
 
-    // If there are too many entries, expand the table.
-    if (this.size > (this.buckets.length * LOAD_FACTOR)) {
+    if (this.table != null) {
+      // Claim the first empty slot, expanding the table if it is too full.
+      int mask = this.table.length - 1;
+      int slot = hash & mask;
+      while (this.table[slot] != 0) {
+        slot = (slot + 1) & mask;
+      } // while
+      this.table[slot] = this.size;
+      if (this.size > (this.table.length * LOAD_FACTOR)) {
+        expand();
+      } // if there are too many entries
+    } else if (this.size > COMPACT_LIMIT) {
+      // We've outgrown the compact form.
       expand();
-    } // if there are too many entries
-
-    // Find out where the key belongs and put the pair there.
-    int index = find(key);
-    @SuppressWarnings("unchecked")
-    ArrayList<KVPair<JSONString, JSONValue>> alist =
-        (ArrayList<KVPair<JSONString, JSONValue>>) this.buckets[index];
-
-    // Special case: Nothing there yet
-    if (alist == null) {
-      alist = new ArrayList<KVPair<JSONString, JSONValue>>();
-      this.buckets[index] = alist;
-    }
-
-    for (int i = 0; i < alist.size(); i++) {
-      if (alist.get(i).key().equals(key)) {
-        alist.set(i, new KVPair<JSONString, JSONValue>(key, value));
-        return;
-      }
-    } // for
-
-    alist.add(new KVPair<JSONString, JSONValue>(key, value));
-    ++this.size;
+    } // if
   } // set(JSONString, JSONValue)
 
   /**
    * Find out how many key/value pairs are in the hash table.
    */
   public int size() {
+    materialize();
     return this.size;
   } // size()
 
@@ -257,35 +293,85 @@ public class JSONHash implements JSONValue {
   // +---------+
 
   /**
-   * Find the index of the entry with a given key. If there is no such entry, return the index of an
-   * entry we can use to store that key.
+   * Mix the high bits of a hash code into the low bits, which are the
+   * ones we use to pick a slot.
    */
-  int find(JSONString key) {
-    return Math.abs(key.hashCode()) % this.buckets.length;
-  } // find(K)
+  static int spread(int hashCode) {
+    return hashCode ^ (hashCode >>> 16);
+  } // spread(int)
 
   /**
-   * Expand the size of the table.
+   * Find the index of the entry with a given key and spread hash, or -1
+   * if there is no such entry.
    */
-  @SuppressWarnings("unchecked")
-  void expand() {
-    // Figure out the size of the new table
-    int newSize = 2 * this.buckets.length;
-    // Remember the old table
-    Object[] oldBuckets = this.buckets;
-    // Create a new table of that size.
-    this.buckets = new Object[newSize];
-    // Move all buckets from the old table to their appropriate
-    // location in the new table.
-    for (int i = 0; i < oldBuckets.length; i++) {
-      if (oldBuckets[i] != null) {
-        ArrayList<KVPair<JSONString, JSONValue>> alist =
-            (ArrayList<KVPair<JSONString, JSONValue>>) oldBuckets[i];
-        for (KVPair<JSONString, JSONValue> pair : alist) {
-          this.set(pair.key(), pair.value());
-        } // for
+  int indexOf(JSONString key, int hash) {
+    materialize();
+    if (this.table == null) {
+      for (int i = 0; i < this.size; i++) {
+        if ((this.hashes[i] == hash) && this.keys[i].equals(key)) {
+          return i;
+        } // if
+      } // for
+      return -1;
+    } // if
+    int mask = this.table.length - 1;
+    int slot = hash & mask;
+    int entry;
+    while ((entry = this.table[slot]) != 0) {
+      int index = entry - 1;
+      if ((this.hashes[index] == hash) && this.keys[index].equals(key)) {
+        return index;
       } // if
+      slot = (slot + 1) & mask;
+    } // while
+    return -1;
+  } // indexOf(JSONString, int)
+
+  /**
+   * Parse the entries of a lazy hash. Safe to call from several
+   * threads at once.
+   */
+  void materialize() {
+    if (this.lazy != null) {
+      synchronized (this) {
+        if (this.lazy != null) {
+          // Fill a separate hash and only then take over its contents, so
+          // that other threads never see us partly filled.
+          JSONHash contents = new JSONHash();
+          JSONParser.materialize(this.lazy, contents);
+          this.keys = contents.keys;
+          this.values = contents.values;
+          this.hashes = contents.hashes;
+          this.table = contents.table;
+          this.size = contents.size;
+          this.lazy = null;
+        } // if
+      } // synchronized
+    } // if
+  } // materialize()
+
+  /**
+   * Build a table twice as large as the current one (or large enough
+   * for the entries of a compact hash), putting each entry in its slot
+   * using the cached hashes.
+   */
+  void expand() {
+    int capacity;
+    if (this.table == null) {
+      capacity = Integer.highestOneBit(4 * this.size - 1);
+    } else {
+      capacity = 2 * this.table.length;
+    } // if
+    int[] newTable = new int[capacity];
+    int mask = newTable.length - 1;
+    for (int i = 0; i < this.size; i++) {
+      int slot = this.hashes[i] & mask;
+      while (newTable[slot] != 0) {
+        slot = (slot + 1) & mask;
+      } // while
+      newTable[slot] = i + 1;
     } // for
+    this.table = newTable;
   } // expand()
 
 } // class JSONHash
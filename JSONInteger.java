@@ -2,21 +2,53 @@ import java.io.PrintWriter;
 import java.math.BigInteger;
 
 /**
- * JSON integers.
+ * JSON integers. Integers that fit in a long (nearly all of them) are
+ * stored as a long; only larger ones need a BigInteger.
+ *
  * @author Marina Ananias
  * @author Linda Jing
  * @author Keely Miyamoto
  */
 public class JSONInteger implements JSONValue {
 
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The smallest value we keep a shared instance of.
+   */
+  static final int CACHE_LOW = -128;
+
+  /**
+   * The largest value we keep a shared instance of.
+   */
+  static final int CACHE_HIGH = 1023;
+
+  /**
+   * The shared instances for CACHE_LOW..CACHE_HIGH.
+   */
+  static final JSONInteger[] CACHE = new JSONInteger[CACHE_HIGH - CACHE_LOW + 1];
+
+  static {
+    for (int i = 0; i < CACHE.length; i++) {
+      CACHE[i] = new JSONInteger((long) (CACHE_LOW + i));
+    } // for
+  } // static
+
   // +--------+------------------------------------------------------
   // | Fields |
   // +--------+
 
   /**
-   * The underlying integer.
+   * The underlying integer, if it fits in a long.
+   */
+  final long value;
+
+  /**
+   * The underlying integer, if it does not fit in a long; otherwise null.
    */
-  BigInteger value;
+  final BigInteger big;
 
   // +--------------+------------------------------------------------
   // | Constructors |
@@ -26,23 +58,44 @@ public class JSONInteger implements JSONValue {
    * Create a new integer given the underlying string.
    */
   public JSONInteger(String str) {
-    this.value = new BigInteger(str);
+    this(new BigInteger(str));
   } // JSONInteger(String)
 
   /**
    * Create a new integer given a BigInteger.
    */
   public JSONInteger(BigInteger value) {
-    this.value = value;
+    if (value.bitLength() < 64) {
+      this.value = value.longValue();
+      this.big = null;
+    } else {
+      this.value = 0;
+      this.big = value;
+    } // if
   } // JSONInteger(BigInteger)
 
   /**
    * Create a new integer given an integer or long.
    */
   public JSONInteger(long l) {
-    this.value = BigInteger.valueOf(l);
+    this.value = l;
+    this.big = null;
   } // JSONInteger(long)
 
+  // +----------------+----------------------------------------------
+  // | Static methods |
+  // +----------------+
+
+  /**
+   * Get an integer for a long, sharing instances for small values.
+   */
+  public static JSONInteger valueOf(long l) {
+    if ((l >= CACHE_LOW) && (l <= CACHE_HIGH)) {
+      return CACHE[(int) l - CACHE_LOW];
+    } // if
+    return new JSONInteger(l);
+  } // valueOf(long)
+
   // +-------------------------+-------------------------------------
   // | Standard object methods |
   // +-------------------------+
@@ -51,7 +104,10 @@ public class JSONInteger implements JSONValue {
    * Convert to a string (e.g., for printing).
    */
   public String toString() {
-    return this.value.toString();
+    if (this.big != null) {
+      return this.big.toString();
+    } // if
+    return Long.toString(this.value);
   } // toString()
 
   /**
@@ -59,7 +115,11 @@ public class JSONInteger implements JSONValue {
    */
   public boolean equals(Object other) {
     if (other instanceof JSONInteger) {
-      return this.value.equals(((JSONInteger) other).value);
+      JSONInteger integer = (JSONInteger) other;
+      if ((this.big != null) || (integer.big != null)) {
+        return (this.big != null) && this.big.equals(integer.big);
+      } // if
+      return this.value == integer.value;
     } // if
     return false;
   } // equals(Object)
@@ -68,7 +128,10 @@ public class JSONInteger implements JSONValue {
    * Compute the hash code.
    */
   public int hashCode() {
-    return this.value.hashCode();
+    if (this.big != null) {
+      return this.big.hashCode();
+    } // if
+    return Long.hashCode(this.value);
   } // hashCode()
 
   // +--------------------+------------------------------------------
@@ -79,15 +142,35 @@ public class JSONInteger implements JSONValue {
    * Write the value as JSON.
    */
   public void writeJSON(PrintWriter pen) {
-    pen.print(this.value.toString());
-    pen.flush();
+    JSONWriter.writeJSON(this, pen);
   } // writeJSON(PrintWriter)
 
   /**
    * Get the underlying value.
    */
   public BigInteger getValue() {
-    return this.value;
+    if (this.big != null) {
+      return this.big;
+    } // if
+    return BigInteger.valueOf(this.value);
   } // getValue()
 
+  /**
+   * Determine if the value fits in a long.
+   */
+  public boolean isLong() {
+    return this.big == null;
+  } // isLong()
+
+  /**
+   * Get the value as a long. Throws an ArithmeticException if it does
+   * not fit.
+   */
+  public long longValue() {
+    if (this.big != null) {
+      throw new ArithmeticException("Integer out of long range: " + this.big);
+    } // if
+    return this.value;
+  } // longValue()
+
 } // class JSONInteger
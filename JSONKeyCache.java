@@ -0,0 +1,135 @@
+/**
+ * A bounded cache of hash keys, shared across documents. Event streams
+ * tend to repeat the same few hundred keys in every record; with a
+ * cache, the lexer matches each key's characters against the keys it
+ * has already seen and hands back the same JSONString (whose string has
+ * its hash code already computed) instead of allocating a new one.
+ *
+ * The cache is direct-mapped: each key has exactly one slot, and a new
+ * key simply replaces whatever was there. Entries are immutable, so one
+ * cache may be shared by parsers on several threads.
+ *
+ * @author Marina Ananias
+ * @author Linda Jing
+ * @author Keely Miyamoto
+ */
+public class JSONKeyCache {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The number of slots in a default cache.
+   */
+  static final int DEFAULT_SIZE = 1024;
+
+  /**
+   * The longest key we cache.
+   */
+  static final int MAX_KEY_LENGTH = 64;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The cached keys. The length is a power of two.
+   */
+  JSONString[] slots;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Build a cache with the default number of slots.
+   */
+  public JSONKeyCache() {
+    this(DEFAULT_SIZE);
+  } // JSONKeyCache()
+
+  /**
+   * Build a cache with room for at least size keys.
+   */
+  public JSONKeyCache(int size) {
+    this.slots = new JSONString[Integer.highestOneBit(Math.max(1, 2 * size - 1))];
+  } // JSONKeyCache(int)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Get the shared copy of a key.
+   */
+  public JSONString get(String key) {
+    if (key.length() > MAX_KEY_LENGTH) {
+      return new JSONString(key);
+    } // if
+    int slot = JSONHash.spread(key.hashCode()) & (this.slots.length - 1);
+    JSONString cached = this.slots[slot];
+    if ((cached != null) && cached.value.equals(key)) {
+      return cached;
+    } // if
+    return this.slots[slot] = new JSONString(key);
+  } // get(String)
+
+  /**
+   * Get the key whose characters are chars[start..end).
+   */
+  public JSONString get(char[] chars, int start, int end) {
+    int length = end - start;
+    if (length > MAX_KEY_LENGTH) {
+      return new JSONString(new String(chars, start, length));
+    } // if
+    int hash = 0;
+    for (int i = start; i < end; i++) {
+      hash = 31 * hash + chars[i];
+    } // for
+    int slot = JSONHash.spread(hash) & (this.slots.length - 1);
+    JSONString cached = this.slots[slot];
+    if (cached != null) {
+      String value = cached.value;
+      if ((value.length() == length) && (value.hashCode() == hash)) {
+        int i = 0;
+        while ((i < length) && (value.charAt(i) == chars[start + i])) {
+          i++;
+        } // while
+        if (i == length) {
+          return cached;
+        } // if
+      } // if
+    } // if
+    return this.slots[slot] = new JSONString(new String(chars, start, length));
+  } // get(char[], int, int)
+
+  /**
+   * Get the key whose characters are the ASCII bytes bytes[start..end).
+   */
+  public JSONString get(byte[] bytes, int start, int end) {
+    int length = end - start;
+    if (length > MAX_KEY_LENGTH) {
+      return new JSONString(JSONByteLexer.decode(bytes, start, end, true));
+    } // if
+    int hash = 0;
+    for (int i = start; i < end; i++) {
+      hash = 31 * hash + bytes[i];
+    } // for
+    int slot = JSONHash.spread(hash) & (this.slots.length - 1);
+    JSONString cached = this.slots[slot];
+    if (cached != null) {
+      String value = cached.value;
+      if ((value.length() == length) && (value.hashCode() == hash)) {
+        int i = 0;
+        while ((i < length) && (value.charAt(i) == bytes[start + i])) {
+          i++;
+        } // while
+        if (i == length) {
+          return cached;
+        } // if
+      } // if
+    } // if
+    return this.slots[slot] = new JSONString(JSONByteLexer.decode(bytes, start, end, true));
+  } // get(byte[], int, int)
+
+} // class JSONKeyCache
@@ -0,0 +1,224 @@
+import java.io.IOException;
+import java.math.BigInteger;
+import java.text.ParseException;
+
+/**
+ * Low-level input for the JSON parser. A lexer hands the parser one
+ * character or one token at a time; subclasses decide where the input
+ * comes from and how it is buffered.
+ *
+ * @author Marina Ananias
+ * @author Linda Jing
+ * @author Keely Miyamoto
+ */
+public abstract class JSONLexer {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The number of characters (or bytes) we read from a stream at a time.
+   */
+  static final int BUFFER_SIZE = 8192;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * Whether the most recent number had a fraction or exponent.
+   */
+  boolean real;
+
+  /**
+   * The value of the most recent number, if it was an integer that fits
+   * in a long.
+   */
+  long integer;
+
+  /**
+   * The text of the most recent number, or null if it was an integer
+   * that fits in a long.
+   */
+  String digits;
+
+  // +------------------+--------------------------------------------
+  // | Abstract methods |
+  // +------------------+
+
+  /**
+   * Get the next character, or -1 at the end of the input.
+   */
+  public abstract int read() throws IOException;
+
+  /**
+   * Get the next character that is not whitespace, or -1 at the end
+   * of the input.
+   */
+  public abstract int skipWhitespace() throws IOException;
+
+  /**
+   * Read the rest of a string whose opening quote has just been read,
+   * decoding any escape sequences.
+   */
+  public abstract String readString() throws ParseException, IOException;
+
+  /**
+   * Read a number whose first character has just been read. Integers
+   * that fit in a long end up in integer; anything else ends up in
+   * digits. Returns INTEGER or REAL.
+   */
+  public abstract JSONToken readNumber() throws ParseException, IOException;
+
+  /**
+   * Get the position of the next character in the input.
+   */
+  public abstract int position();
+
+  /**
+   * Get the number of bytes or characters read so far. Unlike position,
+   * which is for error messages, this keeps counting past 2^31.
+   */
+  public abstract long consumed();
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Read the rest of a literal whose first character has just been read.
+   */
+  public void expect(String rest) throws ParseException, IOException {
+    for (int i = 0; i < rest.length(); i++) {
+      if (read() != rest.charAt(i)) {
+        throw new ParseException("Invalid literal", position());
+      } // if
+    } // for
+  } // expect(String)
+
+  /**
+   * Read the rest of a key whose opening quote has just been read,
+   * getting it from a key cache.
+   */
+  public JSONString readKey(JSONKeyCache cache) throws ParseException, IOException {
+    return cache.get(readString());
+  } // readKey(JSONKeyCache)
+
+  /**
+   * Skip the rest of an array or hash whose opening bracket has just
+   * been read. Only the nesting depth and whether we are in a string
+   * are tracked, so the contents are not checked.
+   */
+  public void skipContainer() throws ParseException, IOException {
+    int depth = 1;
+    boolean inString = false;
+    boolean escaped = false;
+    int ch;
+    while ((ch = read()) != -1) {
+      if (inString) {
+        if (escaped) {
+          escaped = false;
+        } else if (ch == '\\') {
+          escaped = true;
+        } else if (ch == '\"') {
+          inString = false;
+        } // if
+      } else if (ch == '\"') {
+        inString = true;
+      } else if ((ch == '[') || (ch == '{')) {
+        depth++;
+      } else if (((ch == ']') || (ch == '}')) && (--depth == 0)) {
+        return;
+      } // if
+    } // while
+    throw new ParseException("Unexpected end of file", position());
+  } // skipContainer()
+
+  /**
+   * Get a new lexer that reads the input between two positions. This
+   * only works when the whole input is in memory.
+   */
+  public JSONLexer slice(int start, int end) {
+    throw new UnsupportedOperationException("Only in-memory input can be sliced");
+  } // slice(int, int)
+
+  /**
+   * Get the most recent number as a JSON value.
+   */
+  public JSONValue number() {
+    if (this.real) {
+      return new JSONReal(this.digits);
+    } else if (this.digits == null) {
+      return JSONInteger.valueOf(this.integer);
+    } else {
+      return new JSONInteger(new BigInteger(this.digits));
+    } // if
+  } // number()
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Record an integer that fits in a long as the most recent number.
+   */
+  JSONToken setInteger(long value) {
+    this.real = false;
+    this.integer = value;
+    this.digits = null;
+    return JSONToken.INTEGER;
+  } // setInteger(long)
+
+  /**
+   * Record the text of a number as the most recent number.
+   */
+  JSONToken setNumber(String text, boolean real) {
+    this.real = real;
+    this.digits = text;
+    if (real) {
+      return JSONToken.REAL;
+    } // if
+    BigInteger value = new BigInteger(text);
+    if (value.bitLength() < 64) {
+      return setInteger(value.longValue());
+    } // if
+    return JSONToken.INTEGER;
+  } // setNumber(String, boolean)
+
+  /**
+   * Read the rest of an escape sequence whose backslash has just been
+   * read.
+   */
+  char readEscape() throws ParseException, IOException {
+    int ch = read();
+    switch (ch) {
+      case '\"':
+      case '\\':
+      case '/':
+        return (char) ch;
+      case 'b':
+        return '\b';
+      case 'f':
+        return '\f';
+      case 'n':
+        return '\n';
+      case 'r':
+        return '\r';
+      case 't':
+        return '\t';
+      case 'u':
+        int code = 0;
+        for (int i = 0; i < 4; i++) {
+          int digit = Character.digit(read(), 16);
+          if (digit < 0) {
+            throw new ParseException("Invalid unicode escape", position());
+          } // if
+          code = (code << 4) | digit;
+        } // for
+        return (char) code;
+      default:
+        throw new ParseException("Invalid escape sequence", position());
+    } // switch
+  } // readEscape()
+
+} // class JSONLexer
@@ -0,0 +1,223 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Newline-delimited JSON (also known as JSON Lines), one value per line.
+ * A JSONLines is a spliterator over the records in a range of UTF-8
+ * bytes. It splits itself at the line break nearest the middle of its
+ * range, so a parallel stream parses different parts of the input on
+ * different threads. Blank lines are skipped.
+ *
+ * @author Marina Ananias
+ * @author Linda Jing
+ * @author Keely Miyamoto
+ */
+public class JSONLines implements Spliterator<JSONValue> {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * We don't split ranges smaller than this many bytes.
+   */
+  static final int MIN_SPLIT = 64 * 1024;
+
+  /**
+   * The most bytes of a file we map at once.
+   */
+  static final int SEGMENT_SIZE = 1 << 30;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The input.
+   */
+  ByteBuffer source;
+
+  /**
+   * The index of the next unread byte.
+   */
+  int start;
+
+  /**
+   * The index just past the last byte in our range.
+   */
+  int end;
+
+  /**
+   * The input position of source[0], for error messages.
+   */
+  long base;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Build a spliterator over the records in source[start..end).
+   */
+  JSONLines(ByteBuffer source, int start, int end, long base) {
+    this.source = source;
+    this.start = start;
+    this.end = end;
+    this.base = base;
+  } // JSONLines(ByteBuffer, int, int, long)
+
+  // +----------------+----------------------------------------------
+  // | Static methods |
+  // +----------------+
+
+  /**
+   * Get a parallel, ordered stream of the records in the remaining
+   * bytes of a buffer.
+   */
+  public static Stream<JSONValue> stream(ByteBuffer source) {
+    return StreamSupport.stream(
+        new JSONLines(source.slice(), 0, source.remaining(), 0), true);
+  } // stream(ByteBuffer)
+
+  /**
+   * Get a parallel, ordered stream of the records in a UTF-8 file. The
+   * file is memory-mapped a segment at a time, each segment ending at a
+   * line break.
+   */
+  public static Stream<JSONValue> stream(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      Stream<JSONValue> result = Stream.empty();
+      long position = 0;
+      while (position < size) {
+        int length = (int) Math.min(SEGMENT_SIZE, size - position);
+        ByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        if (position + length < size) {
+          // Stop after the last line break, leaving the rest for the next segment.
+          int last = length - 1;
+          while ((last >= 0) && (segment.get(last) != '\n')) {
+            last--;
+          } // while
+          if (last < 0) {
+            throw new IOException("Record at byte " + position + " is longer than "
+                + SEGMENT_SIZE + " bytes");
+          } // if
+          length = last + 1;
+        } // if
+        result = Stream.concat(result,
+            StreamSupport.stream(new JSONLines(segment, 0, length, position), true));
+        position += length;
+      } // while
+      return result;
+    } // try
+  } // stream(Path)
+
+  /**
+   * Parse the records in a stream on a particular pool, giving each to
+   * an action. If ordered is true, the action sees the records in input
+   * order, one at a time; otherwise it is called concurrently from the
+   * pool's threads.
+   */
+  public static void forEach(Stream<JSONValue> records, ForkJoinPool pool, boolean ordered,
+      Consumer<? super JSONValue> action) {
+    if (ordered) {
+      pool.submit(() -> records.forEachOrdered(action)).join();
+    } else {
+      pool.submit(() -> records.unordered().forEach(action)).join();
+    } // if
+  } // forEach(Stream<JSONValue>, ForkJoinPool, boolean, Consumer)
+
+  // +----------------------+----------------------------------------
+  // | Spliterator methods |
+  // +----------------------+
+
+  /**
+   * Parse the next record, if there is one, and give it to action.
+   */
+  public boolean tryAdvance(Consumer<? super JSONValue> action) {
+    // Skip blank lines.
+    while ((this.start < this.end) && JSON.isWhitespace(this.source.get(this.start))) {
+      this.start++;
+    } // while
+    if (this.start >= this.end) {
+      return false;
+    } // if
+    int lineEnd = indexOf('\n', this.start);
+    int recordStart = this.start;
+    this.start = lineEnd + 1;
+    action.accept(parse(recordStart, lineEnd));
+    return true;
+  } // tryAdvance(Consumer)
+
+  /**
+   * Split off the first half of our records.
+   */
+  public Spliterator<JSONValue> trySplit() {
+    if (this.end - this.start < MIN_SPLIT) {
+      return null;
+    } // if
+    int middle = indexOf('\n', this.start + (this.end - this.start) / 2);
+    if (middle >= this.end - 1) {
+      return null;
+    } // if
+    JSONLines prefix = new JSONLines(this.source, this.start, middle + 1, this.base);
+    this.start = middle + 1;
+    return prefix;
+  } // trySplit()
+
+  /**
+   * Estimate the number of records left. (We use the number of bytes.)
+   */
+  public long estimateSize() {
+    return this.end - this.start;
+  } // estimateSize()
+
+  /**
+   * Describe our records.
+   */
+  public int characteristics() {
+    return ORDERED | NONNULL | IMMUTABLE;
+  } // characteristics()
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Find the first occurrence of b in source[from..end), or end if there
+   * is none.
+   */
+  int indexOf(char b, int from) {
+    for (int i = from; i < this.end; i++) {
+      if (this.source.get(i) == b) {
+        return i;
+      } // if
+    } // for
+    return this.end;
+  } // indexOf(char, int)
+
+  /**
+   * Parse the record in source[from..to).
+   */
+  JSONValue parse(int from, int to) {
+    try {
+      return JSONEvents.parse("parseLines", null,
+          new JSONParser(this.source.slice(from, to - from)));
+    } catch (ParseException e) {
+      throw new UncheckedParseException("Record at byte " + (this.base + from) + ": "
+          + e.getMessage(), e);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } // try
+  } // parse(int, int)
+
+} // class JSONLines
@@ -0,0 +1,46 @@
+/**
+ * Callbacks for instrumenting parsing and writing, e.g. to feed
+ * dashboards. Install one with JSON.setListener. The methods are called
+ * on the thread that did the work, so they should be quick and
+ * thread-safe.
+ *
+ * @author Marina Ananias
+ * @author Linda Jing
+ * @author Keely Miyamoto
+ */
+public interface JSONListener {
+
+  /**
+   * Called after a parse succeeds. The operation is "parse",
+   * "parseFile", "parseLines" (once per record), or "parseParallel";
+   * nanos is how long the parse itself took.
+   */
+  public default void parsed(String operation, JSONStats stats, long nanos) {
+  } // parsed(String, JSONStats, long)
+
+  /**
+   * Called after a parse fails with error. The stats cover what was
+   * read before the error.
+   */
+  public default void parseFailed(String operation, JSONStats stats, Throwable error,
+      long nanos) {
+  } // parseFailed(String, JSONStats, Throwable, long)
+
+  /**
+   * Called after a value has been written. The operation is "toJSON",
+   * "write", or "writeJSON" (for which length is the number of
+   * characters written) or "toBytes" or "writeTo" (for which it is the
+   * number of bytes).
+   */
+  public default void written(String operation, long length, long nanos) {
+  } // written(String, long, long)
+
+  /**
+   * Called after a write fails with error. The length is how much had
+   * been written before the error.
+   */
+  public default void writeFailed(String operation, long length, Throwable error,
+      long nanos) {
+  } // writeFailed(String, long, Throwable, long)
+
+} // interface JSONListener
@@ -0,0 +1,318 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+
+/**
+ * UTF-8 input for the JSON parser, read from a memory-mapped file. We
+ * scan the mapped pages directly, so input comes from the page cache
+ * without first being copied into a heap buffer. Since a single mapping
+ * is limited to 2 GB, larger files are mapped one window at a time.
+ *
+ * @author Marina Ananias
+ * @author Linda Jing
+ * @author Keely Miyamoto
+ */
+public class JSONMappedLexer extends JSONLexer {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The most bytes we map at once.
+   */
+  static final int WINDOW_SIZE = 1 << 30;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The file we are reading.
+   */
+  FileChannel channel;
+
+  /**
+   * The size of the file.
+   */
+  long size;
+
+  /**
+   * The file position of the start of the current window.
+   */
+  long windowStart;
+
+  /**
+   * The part of the file that is currently mapped.
+   */
+  MappedByteBuffer window;
+
+  /**
+   * The index of the next unconsumed byte in the window.
+   */
+  int index;
+
+  /**
+   * The number of bytes in the window.
+   */
+  int limit;
+
+  /**
+   * Space for copying out the bytes of a single token.
+   */
+  byte[] scratch;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Build a lexer that reads a whole file.
+   */
+  public JSONMappedLexer(FileChannel channel) throws IOException {
+    this.channel = channel;
+    this.size = channel.size();
+    this.scratch = new byte[64];
+    map(0);
+  } // JSONMappedLexer(FileChannel)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Get the next byte, or -1 at the end of the input.
+   */
+  public int read() throws IOException {
+    if ((this.index >= this.limit) && !fill(this.limit)) {
+      return -1;
+    } // if
+    return this.window.get(this.index++) & 0xFF;
+  } // read()
+
+  /**
+   * Get the next byte that is not whitespace, or -1 at the end of the
+   * input.
+   */
+  public int skipWhitespace() throws IOException {
+    do {
+      MappedByteBuffer bytes = this.window;
+      int i = this.index;
+      int end = this.limit;
+      while (i < end) {
+        int ch = bytes.get(i++) & 0xFF;
+        if (!JSON.isWhitespace(ch)) {
+          this.index = i;
+          return ch;
+        } // if
+      } // while
+      this.index = i;
+    } while (fill(this.limit));
+    return -1;
+  } // skipWhitespace()
+
+  /**
+   * Read the rest of a string whose opening quote has just been read.
+   */
+  public String readString() throws ParseException, IOException {
+    StringBuilder builder = null;
+    int start = this.index;
+    int i = start;
+    boolean ascii = true;
+    while (true) {
+      // Scan for the closing quote, a backslash, or a control character.
+      MappedByteBuffer bytes = this.window;
+      int end = this.limit;
+      int ch = 0;
+      while (i < end) {
+        ch = bytes.get(i);
+        if (ch < 0) {
+          ascii = false;
+        } else if ((ch == '\"') || (ch == '\\') || (ch < 0x20)) {
+          break;
+        } // if
+        i++;
+      } // while
+      if (i >= end) {
+        // The string continues past the window, so remap from its start.
+        this.index = i;
+        int shift = start;
+        if (!fill(start)) {
+          throw new ParseException("Unterminated string", position());
+        } // if
+        start -= shift;
+        i -= shift;
+      } else if (ch == '\"') {
+        this.index = i + 1;
+        String run = decode(start, i, ascii);
+        if (builder == null) {
+          return run;
+        } // if
+        return builder.append(run).toString();
+      } else if (ch == '\\') {
+        if (builder == null) {
+          builder = new StringBuilder(Math.max(16, 2 * (i - start)));
+        } // if
+        builder.append(decode(start, i, ascii));
+        this.index = i + 1;
+        builder.append(readEscape());
+        start = this.index;
+        i = start;
+        ascii = true;
+      } else {
+        this.index = i;
+        throw new ParseException("Unescaped control character in string", position());
+      } // if
+    } // while
+  } // readString()
+
+  /**
+   * Read a number whose first byte has just been read.
+   */
+  public JSONToken readNumber() throws ParseException, IOException {
+    int start = this.index - 1;
+    int i = this.index;
+    boolean real = false;
+    while (true) {
+      MappedByteBuffer bytes = this.window;
+      int end = this.limit;
+      while (i < end) {
+        byte ch = bytes.get(i);
+        if ((ch == '.') || (ch == 'e') || (ch == 'E')) {
+          real = true;
+        } else if (!(((ch >= '0') && (ch <= '9')) || (ch == '-') || (ch == '+'))) {
+          break;
+        } // if
+        i++;
+      } // while
+      if (i < end) {
+        break;
+      } // if
+      // The number may continue past the window, so remap from its start.
+      this.index = i;
+      int shift = start;
+      if (!fill(start)) {
+        break;
+      } // if
+      start -= shift;
+      i -= shift;
+    } // while
+    this.index = i;
+    int length = copy(start, i);
+    if (!JSONByteLexer.isNumber(this.scratch, 0, length)) {
+      throw new ParseException("Invalid number", (int) Math.min(this.windowStart + start,
+          Integer.MAX_VALUE));
+    } // if
+    if (!real && (length <= 18)) {
+      return setInteger(JSONByteLexer.parseLong(this.scratch, 0, length));
+    } // if
+    return setNumber(new String(this.scratch, 0, length, StandardCharsets.ISO_8859_1), real);
+  } // readNumber()
+
+  /**
+   * Skip the rest of an array or hash whose opening bracket has just
+   * been read. Only the nesting depth and whether we are in a string
+   * are tracked, so the contents are not checked.
+   */
+  public void skipContainer() throws ParseException, IOException {
+    int depth = 1;
+    boolean inString = false;
+    boolean escaped = false;
+    do {
+      MappedByteBuffer bytes = this.window;
+      int i = this.index;
+      int end = this.limit;
+      while (i < end) {
+        int ch = bytes.get(i++);
+        if (inString) {
+          if (escaped) {
+            escaped = false;
+          } else if (ch == '\\') {
+            escaped = true;
+          } else if (ch == '\"') {
+            inString = false;
+          } // if
+        } else if (ch == '\"') {
+          inString = true;
+        } else if ((ch == '[') || (ch == '{')) {
+          depth++;
+        } else if (((ch == ']') || (ch == '}')) && (--depth == 0)) {
+          this.index = i;
+          return;
+        } // if
+      } // while
+      this.index = i;
+    } while (fill(this.limit));
+    throw new ParseException("Unexpected end of file", position());
+  } // skipContainer()
+
+  /**
+   * Get the position of the next byte in the file (or Integer.MAX_VALUE,
+   * if that position does not fit in an int).
+   */
+  public int position() {
+    return (int) Math.min(this.windowStart + this.index, Integer.MAX_VALUE);
+  } // position()
+
+  /**
+   * Get the number of bytes read so far.
+   */
+  public long consumed() {
+    return this.windowStart + this.index;
+  } // consumed()
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Map the window that starts at a file position.
+   */
+  void map(long start) throws IOException {
+    long length = Math.min(WINDOW_SIZE, this.size - start);
+    this.window = this.channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+    this.windowStart = start;
+    this.limit = (int) length;
+  } // map(long)
+
+  /**
+   * Map the next window, starting at window index keep, so that the
+   * bytes from keep onward stay available. Index (and anything the
+   * caller remembers) moves back by keep. Returns false if there is no
+   * more input.
+   */
+  boolean fill(int keep) throws IOException {
+    if (this.windowStart + this.limit >= this.size) {
+      return false;
+    } // if
+    if (keep == 0) {
+      throw new IOException("Token does not fit in a " + WINDOW_SIZE + "-byte window");
+    } // if
+    map(this.windowStart + keep);
+    this.index -= keep;
+    return true;
+  } // fill(int)
+
+  /**
+   * Copy window[start..end) into the scratch array, returning the number
+   * of bytes copied.
+   */
+  int copy(int start, int end) {
+    int length = end - start;
+    if (length > this.scratch.length) {
+      this.scratch = new byte[Math.max(length, 2 * this.scratch.length)];
+    } // if
+    this.window.get(start, this.scratch, 0, length);
+    return length;
+  } // copy(int, int)
+
+  /**
+   * Turn window[start..end) into a string.
+   */
+  String decode(int start, int end, boolean ascii) {
+    int length = copy(start, end);
+    return JSONByteLexer.decode(this.scratch, 0, length, ascii);
+  } // decode(int, int, boolean)
+
+} // class JSONMappedLexer
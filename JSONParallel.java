@@ -0,0 +1,370 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parallel parsing of a large top-level array. A quick structural scan
+ * (which only tracks nesting depth and whether we are inside a string)
+ * cuts the array into chunks of about CHUNK_SIZE bytes at commas between
+ * elements. The chunks are then parsed as fork-join tasks and their
+ * elements put together in order.
+ *
+ * @author Marina Ananias
+ * @author Linda Jing
+ * @author Keely Miyamoto
+ */
+public class JSONParallel {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * About how many bytes of input each task parses.
+   */
+  static final int CHUNK_SIZE = 1 << 20;
+
+  /**
+   * The most bytes of a file we map at once while scanning.
+   */
+  static final int WINDOW_SIZE = 1 << 30;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The input, if it is a buffer.
+   */
+  ByteBuffer buffer;
+
+  /**
+   * The input, if it is a file.
+   */
+  FileChannel channel;
+
+  /**
+   * The number of bytes of input.
+   */
+  long size;
+
+  /**
+   * The positions of the '[' that opens the array, the commas that end
+   * each chunk, and the ']' that closes the array.
+   */
+  long[] bounds;
+
+  /**
+   * The number of positions in bounds.
+   */
+  int count;
+
+  /**
+   * The elements of each chunk.
+   */
+  ArrayList<JSONValue>[] results;
+
+  /**
+   * The name of the file, for reporting, or null.
+   */
+  String source;
+
+  /**
+   * What the chunks have read, or null if nobody is listening.
+   */
+  JSONStats stats;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Get ready to parse the remaining bytes of a buffer.
+   */
+  JSONParallel(ByteBuffer buffer) {
+    this.buffer = buffer.slice();
+    this.size = this.buffer.remaining();
+  } // JSONParallel(ByteBuffer)
+
+  /**
+   * Get ready to parse a file.
+   */
+  JSONParallel(FileChannel channel) throws IOException {
+    this.channel = channel;
+    this.size = channel.size();
+  } // JSONParallel(FileChannel)
+
+  // +----------------+----------------------------------------------
+  // | Static methods |
+  // +----------------+
+
+  /**
+   * Parse a UTF-8 buffer that holds a single array, using the threads
+   * of a pool.
+   */
+  public static JSONArray parseArray(ByteBuffer source, ForkJoinPool pool)
+      throws ParseException, IOException {
+    return new JSONParallel(source).parse(pool);
+  } // parseArray(ByteBuffer, ForkJoinPool)
+
+  /**
+   * Parse a UTF-8 file that holds a single array, using the threads of
+   * a pool.
+   */
+  public static JSONArray parseArray(Path file, ForkJoinPool pool)
+      throws ParseException, IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      JSONParallel parallel = new JSONParallel(channel);
+      parallel.source = file.toString();
+      return parallel.parse(pool);
+    } // try
+  } // parseArray(Path, ForkJoinPool)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Parse the input on pool, reporting it to anyone listening.
+   */
+  JSONArray parse(ForkJoinPool pool) throws ParseException, IOException {
+    JSONEvents.Probe probe = JSONEvents.startParse();
+    if (probe == null) {
+      return parseChunks(pool);
+    } // if
+    this.stats = probe.stats;
+    try {
+      JSONArray result = parseChunks(pool);
+      JSONEvents.finishParse(probe, this.size, "parseParallel", this.source, null);
+      return result;
+    } catch (ParseException | IOException | RuntimeException | Error e) {
+      JSONEvents.finishParse(probe, this.size, "parseParallel", this.source, e);
+      throw e;
+    } // try
+  } // parse(ForkJoinPool)
+
+  /**
+   * Scan the input, parse the chunks on pool, and gather the results.
+   */
+  @SuppressWarnings("unchecked")
+  JSONArray parseChunks(ForkJoinPool pool) throws ParseException, IOException {
+    scan();
+    if (this.stats != null) {
+      // The scan has found the outer array.
+      this.stats.arrays++;
+      this.stats.maxDepth = 1;
+    } // if
+    int chunks = this.count - 1;
+    this.results = (ArrayList<JSONValue>[]) new ArrayList<?>[chunks];
+    try {
+      pool.invoke(new ChunkTask(0, chunks));
+    } catch (UncheckedParseException e) {
+      throw e.getCause();
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    } // try
+    JSONArray result = new JSONArray();
+    int total = 0;
+    for (ArrayList<JSONValue> elements : this.results) {
+      total += elements.size();
+    } // for
+    result.values.ensureCapacity(total);
+    for (ArrayList<JSONValue> elements : this.results) {
+      result.values.addAll(elements);
+    } // for
+    return result;
+  } // parseChunks(ForkJoinPool)
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Find the bounds of the array and of each chunk. Only the structure
+   * (matching brackets and strings) is checked here; the elements
+   * themselves are checked when the chunks are parsed.
+   */
+  void scan() throws ParseException, IOException {
+    this.bounds = new long[16];
+    this.count = 0;
+    // The open bracket of each array and hash we are inside.
+    byte[] opens = new byte[16];
+    int depth = 0;
+    boolean inString = false;
+    boolean escaped = false;
+    boolean ended = false;
+    long nextBound = 0;
+    for (long windowStart = 0; windowStart < this.size; windowStart += WINDOW_SIZE) {
+      int length = (int) Math.min(WINDOW_SIZE, this.size - windowStart);
+      ByteBuffer window = region(windowStart, windowStart + length);
+      for (int i = 0; i < length; i++) {
+        byte b = window.get(i);
+        if (inString) {
+          if (escaped) {
+            escaped = false;
+          } else if (b == '\\') {
+            escaped = true;
+          } else if (b == '\"') {
+            inString = false;
+          } // if
+        } else if (JSON.isWhitespace(b)) {
+          continue;
+        } else if (ended) {
+          throw new ParseException("Characters remain at end", position(windowStart + i));
+        } else if (depth == 0) {
+          if (b != '[') {
+            throw new ParseException("Expected an array", position(windowStart + i));
+          } // if
+          opens[depth++] = b;
+          addBound(windowStart + i);
+          nextBound = windowStart + i + CHUNK_SIZE;
+        } else if (b == '\"') {
+          inString = true;
+        } else if ((b == '[') || (b == '{')) {
+          if (depth == opens.length) {
+            opens = Arrays.copyOf(opens, 2 * depth);
+          } // if
+          opens[depth++] = b;
+        } else if ((b == ']') || (b == '}')) {
+          if ((b == ']') != (opens[--depth] == '[')) {
+            throw new ParseException("Mismatched '" + (char) b + "'", position(windowStart + i));
+          } // if
+          if (depth == 0) {
+            addBound(windowStart + i);
+            ended = true;
+          } // if
+        } else if ((b == ',') && (depth == 1) && (windowStart + i >= nextBound)) {
+          addBound(windowStart + i);
+          nextBound = windowStart + i + CHUNK_SIZE;
+        } // if
+      } // for
+    } // for
+    if (!ended) {
+      throw new ParseException("Unexpected end of file", position(this.size));
+    } // if
+  } // scan()
+
+  /**
+   * Remember the position of the start of the array, a chunk boundary,
+   * or the end of the array.
+   */
+  void addBound(long position) {
+    if (this.count == this.bounds.length) {
+      this.bounds = Arrays.copyOf(this.bounds, 2 * this.count);
+    } // if
+    this.bounds[this.count++] = position;
+  } // addBound(long)
+
+  /**
+   * Get the input bytes in [from..to).
+   */
+  ByteBuffer region(long from, long to) throws IOException {
+    if (to - from > Integer.MAX_VALUE) {
+      throw new IOException("Array element at byte " + from + " is too large");
+    } // if
+    if (this.buffer != null) {
+      return this.buffer.slice((int) from, (int) (to - from));
+    } // if
+    return this.channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+  } // region(long, long)
+
+  /**
+   * Parse the elements of chunk number chunk.
+   */
+  ArrayList<JSONValue> parseChunk(int chunk) throws ParseException, IOException {
+    long from = this.bounds[chunk] + 1;
+    long to = this.bounds[chunk + 1];
+    JSONReader reader = new JSONReader(region(from, to));
+    reader.startSequence();
+    if (this.stats != null) {
+      reader.stats = new JSONStats();
+    } // if
+    JSONParser parser = new JSONParser(reader);
+    ArrayList<JSONValue> elements = new ArrayList<JSONValue>();
+    try {
+      JSONToken token;
+      while ((token = reader.nextToken()) != JSONToken.END) {
+        elements.add(parser.parseValue(token));
+      } // while
+    } catch (ParseException e) {
+      throw new ParseException(e.getMessage(), position(from + e.getErrorOffset()));
+    } finally {
+      if (reader.stats != null) {
+        // The chunk's elements sit inside the outer array.
+        this.stats.add(reader.stats, 1);
+      } // if
+    } // try
+    // Only "[]" may have no elements; otherwise a comma was out of place.
+    if (elements.isEmpty() && (this.count > 2)) {
+      throw new ParseException("Expected a value", position(to));
+    } // if
+    return elements;
+  } // parseChunk(int)
+
+  /**
+   * Convert a position in the input to something that fits in a
+   * ParseException.
+   */
+  static int position(long position) {
+    return (int) Math.min(position, Integer.MAX_VALUE);
+  } // position(long)
+
+  // +---------------+-----------------------------------------------
+  // | Inner classes |
+  // +---------------+
+
+  /**
+   * A task that parses a range of chunks, splitting in half until there
+   * is only one chunk left.
+   */
+  class ChunkTask extends RecursiveAction {
+    /**
+     * The version of the serialized form.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The first chunk to parse.
+     */
+    int lo;
+
+    /**
+     * The chunk after the last one to parse.
+     */
+    int hi;
+
+    /**
+     * Build a task that parses chunks lo up to (but not including) hi.
+     */
+    ChunkTask(int lo, int hi) {
+      this.lo = lo;
+      this.hi = hi;
+    } // ChunkTask(int, int)
+
+    /**
+     * Parse our chunks.
+     */
+    protected void compute() {
+      if (this.hi - this.lo > 1) {
+        int mid = (this.lo + this.hi) >>> 1;
+        invokeAll(new ChunkTask(this.lo, mid), new ChunkTask(mid, this.hi));
+        return;
+      } // if
+      try {
+        results[this.lo] = parseChunk(this.lo);
+      } catch (ParseException e) {
+        throw new UncheckedParseException(e.getMessage(), e);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      } // try
+    } // compute()
+  } // class ChunkTask
+
+} // class JSONParallel
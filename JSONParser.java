@@ -0,0 +1,240 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.text.ParseException;
+
+/**
+ * A single-use JSON parser. Each parser keeps its own position and
+ * lookahead, so independent documents can be parsed on separate threads
+ * at the same time.
+ *
+ * @author Marina Ananias
+ * @author Linda Jing
+ * @author Keely Miyamoto
+ */
+public class JSONParser {
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * Where we read tokens from.
+   */
+  JSONReader reader;
+
+  /**
+   * Whether to leave arrays and hashes unparsed until they are used.
+   */
+  boolean lazy;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Build a new parser that reads tokens from a reader.
+   */
+  public JSONParser(JSONReader reader) {
+    this.reader = reader;
+  } // JSONParser(JSONReader)
+
+  /**
+   * Build a new parser that reads from a lexer.
+   */
+  public JSONParser(JSONLexer lexer) {
+    this(new JSONReader(lexer));
+  } // JSONParser(JSONLexer)
+
+  /**
+   * Build a new parser that reads from source.
+   */
+  public JSONParser(Reader source) {
+    this(new JSONReader(source));
+  } // JSONParser(Reader)
+
+  /**
+   * Build a new parser that reads from a string.
+   */
+  public JSONParser(String source) {
+    this(new JSONReader(source));
+  } // JSONParser(String)
+
+  /**
+   * Build a new parser that reads UTF-8 from an array of bytes.
+   */
+  public JSONParser(byte[] source) {
+    this(new JSONReader(source));
+  } // JSONParser(byte[])
+
+  /**
+   * Build a new parser that reads UTF-8 from the remaining bytes of a
+   * buffer.
+   */
+  public JSONParser(ByteBuffer source) {
+    this(new JSONReader(source));
+  } // JSONParser(ByteBuffer)
+
+  /**
+   * Build a new parser that reads UTF-8 from a stream.
+   */
+  public JSONParser(InputStream source) {
+    this(new JSONReader(source));
+  } // JSONParser(InputStream)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Parse one JSON value, making sure that nothing but whitespace follows it.
+   */
+  public JSONValue parse() throws ParseException, IOException {
+    JSONValue result = parseKernel();
+    this.reader.nextToken();
+    return result;
+  } // parse()
+
+  /**
+   * Share keys through a cache, which may be used by several parsers at
+   * once. Call before parsing.
+   */
+  public void setKeyCache(JSONKeyCache cache) {
+    this.reader.setKeyCache(cache);
+  } // setKeyCache(JSONKeyCache)
+
+  /**
+   * Parse one JSON value lazily. Arrays and hashes only remember where
+   * they are in the input; their contents are parsed when they are
+   * first used. The whole input must be in memory (a string, a byte
+   * array, or a heap buffer), and syntax errors inside a lazy array or
+   * hash show up as an UncheckedParseException when it is first used.
+   */
+  public JSONValue parseLazy() throws ParseException, IOException {
+    this.lazy = true;
+    return parse();
+  } // parseLazy()
+
+  // +----------------+----------------------------------------------
+  // | Static methods |
+  // +----------------+
+
+  /**
+   * Fill in the contents of a lazy array from its slice of the input.
+   */
+  static void materialize(JSONLexer source, JSONArray array) {
+    JSONParser parser = new JSONParser(source);
+    parser.lazy = true;
+    try {
+      parser.reader.nextToken();
+      parser.parseElements(array);
+    } catch (ParseException e) {
+      throw new UncheckedParseException(e.getMessage(), e);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } // try
+  } // materialize(JSONLexer, JSONArray)
+
+  /**
+   * Fill in the contents of a lazy hash from its slice of the input.
+   */
+  static void materialize(JSONLexer source, JSONHash hash) {
+    JSONParser parser = new JSONParser(source);
+    parser.lazy = true;
+    try {
+      parser.reader.nextToken();
+      while (parser.reader.nextToken() != JSONToken.END_HASH) {
+        JSONString key = parser.reader.getKey();
+        hash.set(key, parser.parseKernel());
+      } // while
+    } catch (ParseException e) {
+      throw new UncheckedParseException(e.getMessage(), e);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } // try
+  } // materialize(JSONLexer, JSONHash)
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Skip over the array or hash whose first token we have just read,
+   * returning a lexer for its part of the input.
+   */
+  JSONLexer skipContents() throws ParseException, IOException {
+    int start = this.reader.position() - 1;
+    this.reader.skipChildren();
+    return this.reader.lexer.slice(start, this.reader.position());
+  } // skipContents()
+
+  /**
+   * Parse the next JSON value from the reader.
+   */
+  JSONValue parseKernel() throws ParseException, IOException {
+    return parseValue(this.reader.nextToken());
+  } // parseKernel()
+
+  /**
+   * Parse the elements of an array whose '[' we have just read, up to
+   * and including the ']'. Numbers go straight into the array's long[]
+   * or double[] while it has one (see JSONArray for how reals keep
+   * their digits there).
+   */
+  void parseElements(JSONArray array) throws ParseException, IOException {
+    JSONToken token;
+    while ((token = this.reader.nextToken()) != JSONToken.END_ARRAY) {
+      if ((token == JSONToken.INTEGER) && this.reader.isLong()) {
+        if (array.addLong(this.reader.getLong())) {
+          continue;
+        } // if
+      } else if (token == JSONToken.REAL) {
+        String digits = this.reader.lexer.digits;
+        if (array.addDouble(JSONReal.parseDouble(digits), digits)) {
+          continue;
+        } // if
+      } // if
+      array.add(parseValue(token));
+    } // while
+  } // parseElements(JSONArray)
+
+  /**
+   * Build the JSON value that starts with a token we have just read.
+   */
+  JSONValue parseValue(JSONToken token) throws ParseException, IOException {
+    switch (token) {
+      case START_ARRAY:
+        if (this.lazy) {
+          return new JSONArray(skipContents());
+        } // if
+        JSONArray array = new JSONArray();
+        parseElements(array);
+        return array;
+      case START_HASH:
+        if (this.lazy) {
+          return new JSONHash(skipContents());
+        } // if
+        JSONHash hash = new JSONHash();
+        while (this.reader.nextToken() != JSONToken.END_HASH) {
+          JSONString key = this.reader.getKey();
+          hash.set(key, parseKernel());
+        } // while
+        return hash;
+      case STRING:
+        return new JSONString(this.reader.getString());
+      case INTEGER:
+      case REAL:
+        return this.reader.getNumber();
+      case TRUE:
+        return JSONConstant.TRUE;
+      case FALSE:
+        return JSONConstant.FALSE;
+      case NULL:
+        return JSONConstant.NULL;
+      default:
+        throw new ParseException("Unexpected end of file", this.reader.position());
+    } // switch
+  } // parseValue(JSONToken)
+
+} // class JSONParser
@@ -0,0 +1,268 @@
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compiled JSON Pointer (RFC 6901), such as /payload/items/0/price,
+ * in which a segment of * matches every key of a hash or element of an
+ * array. A path can be run over a tree that has already been parsed or
+ * over a JSONReader, in which case only the matching values are built
+ * and everything else is skipped. Either way, a key that appears more
+ * than once in a hash matches only its last value, in the place of its
+ * first appearance, just as in the parsed hash.
+ *
+ * @author Marina Ananias
+ * @author Linda Jing
+ * @author Keely Miyamoto
+ */
+public class JSONPath {
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The text of the path.
+   */
+  String path;
+
+  /**
+   * The unescaped segments, with null standing for a wildcard.
+   */
+  String[] keys;
+
+  /**
+   * The array index each segment stands for, or -1 if it can only
+   * match hash keys.
+   */
+  int[] indices;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Build a path from its segments.
+   */
+  JSONPath(String path, String[] keys, int[] indices) {
+    this.path = path;
+    this.keys = keys;
+    this.indices = indices;
+  } // JSONPath(String, String[], int[])
+
+  // +----------------+----------------------------------------------
+  // | Static methods |
+  // +----------------+
+
+  /**
+   * Compile a path. The empty path selects the whole document; any
+   * other path is a sequence of segments, each starting with '/'.
+   * Within a segment, ~1 stands for '/' and ~0 for '~', as usual, and
+   * ~2 stands for '*', so that /~2 matches only the key "*".
+   */
+  public static JSONPath compile(String path) throws ParseException {
+    if (path.isEmpty()) {
+      return new JSONPath(path, new String[0], new int[0]);
+    } else if (path.charAt(0) != '/') {
+      throw new ParseException("Path must start with '/'", 0);
+    } // if
+    String[] parts = path.substring(1).split("/", -1);
+    String[] keys = new String[parts.length];
+    int[] indices = new int[parts.length];
+    int position = 1;
+    for (int i = 0; i < parts.length; i++) {
+      String part = parts[i];
+      if (part.equals("*")) {
+        keys[i] = null;
+        indices[i] = -1;
+      } else {
+        keys[i] = unescape(part, position);
+        indices[i] = index(keys[i]);
+      } // if
+      position += part.length() + 1;
+    } // for
+    return new JSONPath(path, keys, indices);
+  } // compile(String)
+
+  // +-------------------------+-------------------------------------
+  // | Standard object methods |
+  // +-------------------------+
+
+  /**
+   * Convert to a string (e.g., for printing).
+   */
+  public String toString() {
+    return this.path;
+  } // toString()
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Get the values in a tree that the path selects, in document order.
+   */
+  public List<JSONValue> select(JSONValue root) {
+    List<JSONValue> result = new ArrayList<JSONValue>();
+    select(root, 0, result);
+    return result;
+  } // select(JSONValue)
+
+  /**
+   * Read the next value from a reader, building only the parts of it
+   * that the path selects, in document order. The rest is skipped.
+   */
+  public List<JSONValue> select(JSONReader reader) throws ParseException, IOException {
+    List<JSONValue> result = new ArrayList<JSONValue>();
+    select(new JSONParser(reader), reader.nextToken(), 0, result);
+    return result;
+  } // select(JSONReader)
+
+  /**
+   * Get the first value in a tree that the path selects, or null if it
+   * selects nothing.
+   */
+  public JSONValue first(JSONValue root) {
+    List<JSONValue> result = select(root);
+    return result.isEmpty() ? null : result.get(0);
+  } // first(JSONValue)
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Add the values under value that match the segments from depth on.
+   */
+  void select(JSONValue value, int depth, List<JSONValue> result) {
+    if (depth == this.keys.length) {
+      result.add(value);
+    } else if (value instanceof JSONHash) {
+      JSONHash hash = (JSONHash) value;
+      hash.materialize();
+      if (this.keys[depth] != null) {
+        JSONString key = new JSONString(this.keys[depth]);
+        int index = hash.indexOf(key, JSONHash.spread(key.hashCode()));
+        if (index >= 0) {
+          select(hash.values[index], depth + 1, result);
+        } // if
+      } else {
+        for (int i = 0; i < hash.size; i++) {
+          select(hash.values[i], depth + 1, result);
+        } // for
+      } // if
+    } else if (value instanceof JSONArray) {
+      JSONArray array = (JSONArray) value;
+      if (this.keys[depth] == null) {
+        for (int i = 0; i < array.size(); i++) {
+          select(array.get(i), depth + 1, result);
+        } // for
+      } else if ((this.indices[depth] >= 0) && (this.indices[depth] < array.size())) {
+        select(array.get(this.indices[depth]), depth + 1, result);
+      } // if
+    } // if
+  } // select(JSONValue, int, List<JSONValue>)
+
+  /**
+   * Add the values under the value that starts with token that match
+   * the segments from depth on, consuming the whole value.
+   */
+  void select(JSONParser parser, JSONToken token, int depth, List<JSONValue> result)
+      throws ParseException, IOException {
+    JSONReader reader = parser.reader;
+    if (depth == this.keys.length) {
+      result.add(parser.parseValue(token));
+    } else if (token == JSONToken.START_HASH) {
+      String key = this.keys[depth];
+      // What each matching key selected, in order of first appearance.
+      // A repeated key replaces what it selected before.
+      Map<String, List<JSONValue>> matches = null;
+      while (reader.nextToken() != JSONToken.END_HASH) {
+        String name = reader.getString();
+        JSONToken next = reader.nextToken();
+        if ((key == null) || key.equals(name)) {
+          List<JSONValue> found = new ArrayList<JSONValue>();
+          select(parser, next, depth + 1, found);
+          if (matches == null) {
+            matches = new LinkedHashMap<String, List<JSONValue>>();
+          } // if
+          matches.put(name, found);
+        } else {
+          reader.skipChildren();
+        } // if
+      } // while
+      if (matches != null) {
+        for (List<JSONValue> found : matches.values()) {
+          result.addAll(found);
+        } // for
+      } // if
+    } else if (token == JSONToken.START_ARRAY) {
+      boolean all = (this.keys[depth] == null);
+      int wanted = this.indices[depth];
+      int index = 0;
+      JSONToken next;
+      while ((next = reader.nextToken()) != JSONToken.END_ARRAY) {
+        if (all || (index == wanted)) {
+          select(parser, next, depth + 1, result);
+        } else {
+          reader.skipChildren();
+        } // if
+        index++;
+      } // while
+    } else if (token == JSONToken.END) {
+      throw new ParseException("Unexpected end of file", reader.position());
+    } // if
+  } // select(JSONParser, JSONToken, int, List<JSONValue>)
+
+  /**
+   * Undo the ~0, ~1, and ~2 escapes in a segment that starts at
+   * position.
+   */
+  static String unescape(String segment, int position) throws ParseException {
+    if (segment.indexOf('~') < 0) {
+      return segment;
+    } // if
+    StringBuilder result = new StringBuilder(segment.length());
+    for (int i = 0; i < segment.length(); i++) {
+      char ch = segment.charAt(i);
+      if (ch != '~') {
+        result.append(ch);
+      } else if ((i + 1 < segment.length()) && (segment.charAt(i + 1) == '0')) {
+        result.append('~');
+        i++;
+      } else if ((i + 1 < segment.length()) && (segment.charAt(i + 1) == '1')) {
+        result.append('/');
+        i++;
+      } else if ((i + 1 < segment.length()) && (segment.charAt(i + 1) == '2')) {
+        result.append('*');
+        i++;
+      } else {
+        throw new ParseException("Invalid escape in path", position + i);
+      } // if
+    } // for
+    return result.toString();
+  } // unescape(String, int)
+
+  /**
+   * Get the array index a segment stands for (digits without a leading
+   * zero), or -1 if it is not one.
+   */
+  static int index(String segment) {
+    int length = segment.length();
+    if ((length == 0) || (length > 9) || ((length > 1) && (segment.charAt(0) == '0'))) {
+      return -1;
+    } // if
+    int result = 0;
+    for (int i = 0; i < length; i++) {
+      char ch = segment.charAt(i);
+      if ((ch < '0') || (ch > '9')) {
+        return -1;
+      } // if
+      result = 10 * result + (ch - '0');
+    } // for
+    return result;
+  } // index(String)
+
+} // class JSONPath
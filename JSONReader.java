@@ -0,0 +1,518 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.text.ParseException;
+import java.util.Arrays;
+
+/**
+ * A pull parser for JSON. Rather than building a whole tree, a reader
+ * hands back one token at a time, so arbitrarily large inputs can be
+ * processed in constant memory (plus the nesting depth).
+ *
+ * @author Marina Ananias
+ * @author Linda Jing
+ * @author Keely Miyamoto
+ */
+public class JSONReader {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * Scope: at the top level, before the value.
+   */
+  static final byte EMPTY_DOCUMENT = 0;
+
+  /**
+   * Scope: at the top level, after the value.
+   */
+  static final byte NONEMPTY_DOCUMENT = 1;
+
+  /**
+   * Scope: in an array, before the first element.
+   */
+  static final byte EMPTY_ARRAY = 2;
+
+  /**
+   * Scope: in an array, after an element.
+   */
+  static final byte NONEMPTY_ARRAY = 3;
+
+  /**
+   * Scope: in a hash, before the first key.
+   */
+  static final byte EMPTY_HASH = 4;
+
+  /**
+   * Scope: in a hash, after a key and its ':'.
+   */
+  static final byte DANGLING_KEY = 5;
+
+  /**
+   * Scope: in a hash, after a value.
+   */
+  static final byte NONEMPTY_HASH = 6;
+
+  /**
+   * Scope: at the top level of a comma-separated sequence of values,
+   * before the first value.
+   */
+  static final byte EMPTY_SEQUENCE = 7;
+
+  /**
+   * Scope: at the top level of a comma-separated sequence of values,
+   * after a value.
+   */
+  static final byte NONEMPTY_SEQUENCE = 8;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * Where we read characters from.
+   */
+  JSONLexer lexer;
+
+  /**
+   * The scopes we are nested in, innermost last.
+   */
+  byte[] scopes;
+
+  /**
+   * The number of scopes in use. The document itself is scope 0.
+   */
+  int depth;
+
+  /**
+   * The most recent token.
+   */
+  JSONToken token;
+
+  /**
+   * The text of the most recent KEY or STRING token.
+   */
+  String string;
+
+  /**
+   * The most recent KEY token, if we are using a key cache.
+   */
+  JSONString key;
+
+  /**
+   * Where we look up keys, or null to read each key afresh.
+   */
+  JSONKeyCache keys;
+
+  /**
+   * What we count the values we read into, or null if nobody is
+   * listening.
+   */
+  JSONStats stats;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Build a new reader that reads from a lexer.
+   */
+  public JSONReader(JSONLexer lexer) {
+    this.lexer = lexer;
+    this.scopes = new byte[32];
+    this.scopes[0] = EMPTY_DOCUMENT;
+    this.depth = 1;
+  } // JSONReader(JSONLexer)
+
+  /**
+   * Build a new reader that reads from a Reader.
+   */
+  public JSONReader(Reader source) {
+    this(new JSONCharLexer(source));
+  } // JSONReader(Reader)
+
+  /**
+   * Build a new reader that reads from a string.
+   */
+  public JSONReader(String source) {
+    this(new JSONCharLexer(source));
+  } // JSONReader(String)
+
+  /**
+   * Build a new reader that reads UTF-8 from an array of bytes.
+   */
+  public JSONReader(byte[] source) {
+    this(new JSONByteLexer(source));
+  } // JSONReader(byte[])
+
+  /**
+   * Build a new reader that reads UTF-8 from the remaining bytes of a
+   * buffer.
+   */
+  public JSONReader(ByteBuffer source) {
+    this(new JSONByteLexer(source));
+  } // JSONReader(ByteBuffer)
+
+  /**
+   * Build a new reader that reads UTF-8 from a stream.
+   */
+  public JSONReader(InputStream source) {
+    this(new JSONByteLexer(source));
+  } // JSONReader(InputStream)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Read the next token. Once the single top-level value has been read,
+   * this returns END (and complains if anything but whitespace remains).
+   */
+  public JSONToken nextToken() throws ParseException, IOException {
+    int ch = this.lexer.skipWhitespace();
+    switch (this.scopes[this.depth - 1]) {
+      case EMPTY_DOCUMENT:
+        this.scopes[this.depth - 1] = NONEMPTY_DOCUMENT;
+        return value(ch);
+      case NONEMPTY_DOCUMENT:
+        if (ch != -1) {
+          throw new ParseException("Characters remain at end", this.lexer.position());
+        } // if
+        return this.token = JSONToken.END;
+      case EMPTY_ARRAY:
+        if (ch == ']') {
+          return end(JSONToken.END_ARRAY);
+        } // if
+        this.scopes[this.depth - 1] = NONEMPTY_ARRAY;
+        return value(ch);
+      case NONEMPTY_ARRAY:
+        if (ch == ']') {
+          return end(JSONToken.END_ARRAY);
+        } else if (ch != ',') {
+          throw new ParseException("Invalid array format", this.lexer.position());
+        } // if
+        return value(this.lexer.skipWhitespace());
+      case EMPTY_HASH:
+        if (ch == '}') {
+          return end(JSONToken.END_HASH);
+        } // if
+        return key(ch);
+      case NONEMPTY_HASH:
+        if (ch == '}') {
+          return end(JSONToken.END_HASH);
+        } else if (ch != ',') {
+          throw new ParseException("Invalid Hash format", this.lexer.position());
+        } // if
+        return key(this.lexer.skipWhitespace());
+      case DANGLING_KEY:
+        this.scopes[this.depth - 1] = NONEMPTY_HASH;
+        return value(ch);
+      case EMPTY_SEQUENCE:
+        if (ch == -1) {
+          return this.token = JSONToken.END;
+        } // if
+        this.scopes[this.depth - 1] = NONEMPTY_SEQUENCE;
+        return value(ch);
+      default: // NONEMPTY_SEQUENCE
+        if (ch == -1) {
+          return this.token = JSONToken.END;
+        } else if (ch != ',') {
+          throw new ParseException("Invalid array format", this.lexer.position());
+        } // if
+        return value(this.lexer.skipWhitespace());
+    } // switch
+  } // nextToken()
+
+  /**
+   * Treat the input as the inside of an array: values separated by
+   * commas, with no brackets around them. Must be called before the
+   * first token is read.
+   */
+  void startSequence() {
+    this.scopes[0] = EMPTY_SEQUENCE;
+  } // startSequence()
+
+  /**
+   * Skip over the next value, including everything nested inside it.
+   * If the next token is a key, skip the key and its value.
+   */
+  public void skipValue() throws ParseException, IOException {
+    JSONToken next = nextToken();
+    if (next == JSONToken.KEY) {
+      next = nextToken();
+    } // if
+    if ((next == JSONToken.END_ARRAY) || (next == JSONToken.END_HASH)) {
+      throw new ParseException("No value to skip", this.lexer.position());
+    } // if
+    skipChildren();
+  } // skipValue()
+
+  /**
+   * If the most recent token started an array or hash, skip to the end
+   * of that array or hash, making the matching END_ARRAY or END_HASH the
+   * most recent token. The skipped contents are scanned for brackets
+   * and strings but not tokenized, so they are not checked for errors.
+   */
+  public void skipChildren() throws ParseException, IOException {
+    if (this.token == JSONToken.START_ARRAY) {
+      this.lexer.skipContainer();
+      end(JSONToken.END_ARRAY);
+    } else if (this.token == JSONToken.START_HASH) {
+      this.lexer.skipContainer();
+      end(JSONToken.END_HASH);
+    } // if
+  } // skipChildren()
+
+  /**
+   * Get the most recent token.
+   */
+  public JSONToken currentToken() {
+    return this.token;
+  } // currentToken()
+
+  /**
+   * Get how many arrays and hashes we are inside of.
+   */
+  public int currentDepth() {
+    return this.depth - 1;
+  } // currentDepth()
+
+  /**
+   * Get the text of the most recent KEY or STRING token.
+   */
+  public String getString() {
+    return this.string;
+  } // getString()
+
+  /**
+   * Get the most recent KEY token. With a key cache, this is the shared
+   * copy of the key.
+   */
+  public JSONString getKey() {
+    if (this.keys != null) {
+      return this.key;
+    } // if
+    return new JSONString(this.string);
+  } // getKey()
+
+  /**
+   * Look up keys in cache (which may be shared with other readers), so
+   * that repeated keys share one JSONString. Pass null to stop.
+   */
+  public void setKeyCache(JSONKeyCache cache) {
+    this.keys = cache;
+  } // setKeyCache(JSONKeyCache)
+
+  /**
+   * Get the value of the most recent INTEGER or REAL token.
+   */
+  public JSONValue getNumber() {
+    return this.lexer.number();
+  } // getNumber()
+
+  /**
+   * Determine if the most recent INTEGER token fits in a long.
+   */
+  public boolean isLong() {
+    return !this.lexer.real && (this.lexer.digits == null);
+  } // isLong()
+
+  /**
+   * Get the value of the most recent INTEGER token as a long.
+   */
+  public long getLong() {
+    if (isLong()) {
+      return this.lexer.integer;
+    } // if
+    return getBigDecimal().longValueExact();
+  } // getLong()
+
+  /**
+   * Get the value of the most recent INTEGER token.
+   */
+  public BigInteger getBigInteger() {
+    if (isLong()) {
+      return BigInteger.valueOf(this.lexer.integer);
+    } else if (this.lexer.real) {
+      return getBigDecimal().toBigIntegerExact();
+    } // if
+    return new BigInteger(this.lexer.digits);
+  } // getBigInteger()
+
+  /**
+   * Get the value of the most recent INTEGER or REAL token as a double.
+   */
+  public double getDouble() {
+    if (isLong()) {
+      return this.lexer.integer;
+    } // if
+    return JSONReal.parseDouble(this.lexer.digits);
+  } // getDouble()
+
+  /**
+   * Get the value of the most recent INTEGER or REAL token.
+   */
+  public BigDecimal getBigDecimal() {
+    if (isLong()) {
+      return BigDecimal.valueOf(this.lexer.integer);
+    } // if
+    return new BigDecimal(this.lexer.digits);
+  } // getBigDecimal()
+
+  /**
+   * Read the rest of the document, reporting each token to a handler.
+   */
+  public void accept(JSONHandler handler) throws ParseException, IOException {
+    JSONToken next;
+    while ((next = nextToken()) != JSONToken.END) {
+      switch (next) {
+        case START_ARRAY:
+          handler.startArray();
+          break;
+        case END_ARRAY:
+          handler.endArray();
+          break;
+        case START_HASH:
+          handler.startHash();
+          break;
+        case END_HASH:
+          handler.endHash();
+          break;
+        case KEY:
+          handler.key(this.string);
+          break;
+        case STRING:
+          handler.stringValue(this.string);
+          break;
+        case INTEGER:
+          if (isLong()) {
+            handler.numberValue(this.lexer.integer);
+          } else {
+            handler.numberValue(new BigInteger(this.lexer.digits));
+          } // if
+          break;
+        case REAL:
+          handler.numberValue(this.lexer.digits);
+          break;
+        case TRUE:
+          handler.booleanValue(true);
+          break;
+        case FALSE:
+          handler.booleanValue(false);
+          break;
+        default: // NULL
+          handler.nullValue();
+          break;
+      } // switch
+    } // while
+  } // accept(JSONHandler)
+
+  /**
+   * Get the position of the next character in the input.
+   */
+  public int position() {
+    return this.lexer.position();
+  } // position()
+
+  /**
+   * Get the number of bytes or characters read so far, even past 2^31.
+   */
+  public long consumed() {
+    return this.lexer.consumed();
+  } // consumed()
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Read a value whose first character, ch, has just been read, and
+   * count it if anyone is listening.
+   */
+  JSONToken value(int ch) throws ParseException, IOException {
+    JSONToken result = readValue(ch);
+    if (this.stats != null) {
+      this.stats.count(result, this.depth - 1, this.string);
+    } // if
+    return result;
+  } // value(int)
+
+  /**
+   * Read a value whose first character, ch, has just been read.
+   */
+  JSONToken readValue(int ch) throws ParseException, IOException {
+    switch (ch) {
+      case -1:
+        throw new ParseException("Unexpected end of file", this.lexer.position());
+      case '[':
+        push(EMPTY_ARRAY);
+        return this.token = JSONToken.START_ARRAY;
+      case '{':
+        push(EMPTY_HASH);
+        return this.token = JSONToken.START_HASH;
+      case '\"':
+        this.string = this.lexer.readString();
+        return this.token = JSONToken.STRING;
+      case 't':
+        this.lexer.expect("rue");
+        return this.token = JSONToken.TRUE;
+      case 'f':
+        this.lexer.expect("alse");
+        return this.token = JSONToken.FALSE;
+      case 'n':
+        this.lexer.expect("ull");
+        return this.token = JSONToken.NULL;
+      default:
+        if ((ch == '-') || ((ch >= '0') && (ch <= '9'))) {
+          return this.token = this.lexer.readNumber();
+        } // if
+        throw new ParseException("No JSONValues were identified", this.lexer.position());
+    } // switch
+  } // readValue(int)
+
+  /**
+   * Read a key whose first character, ch, has just been read, along
+   * with the ':' that follows it.
+   */
+  JSONToken key(int ch) throws ParseException, IOException {
+    if (ch != '\"') {
+      throw new ParseException("Expected a string key", this.lexer.position());
+    } // if
+    if (this.keys != null) {
+      this.key = this.lexer.readKey(this.keys);
+      this.string = this.key.value;
+    } else {
+      this.string = this.lexer.readString();
+    } // if
+    if (this.stats != null) {
+      this.stats.key(this.string);
+    } // if
+    if (this.lexer.skipWhitespace() != ':') {
+      throw new ParseException("Expected ':' after key", this.lexer.position());
+    } // if
+    this.scopes[this.depth - 1] = DANGLING_KEY;
+    return this.token = JSONToken.KEY;
+  } // key(int)
+
+  /**
+   * Enter a new array or hash.
+   */
+  void push(byte scope) {
+    if (this.depth == this.scopes.length) {
+      this.scopes = Arrays.copyOf(this.scopes, 2 * this.depth);
+    } // if
+    this.scopes[this.depth++] = scope;
+  } // push(byte)
+
+  /**
+   * Leave the current array or hash.
+   */
+  JSONToken end(JSONToken token) {
+    this.depth--;
+    return this.token = token;
+  } // end(JSONToken)
+
+} // class JSONReader
@@ -2,21 +2,63 @@ import java.io.PrintWriter;
 import java.math.BigDecimal;
 
 /**
- * JSON reals.
+ * JSON reals. A real keeps its value as a double, along with the digits
+ * it was written with (if any); the exact BigDecimal is only built when
+ * someone asks for it.
+ *
  * @author Marina Ananias
  * @author Linda Jing
  * @author Keely Miyamoto
  */
 public class JSONReal implements JSONValue {
 
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The powers of ten that doubles represent exactly.
+   */
+  static final double[] POWERS_OF_TEN = {
+      1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+      1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+  /**
+   * The largest significand that a double represents exactly.
+   */
+  static final long MAX_EXACT = 1L << 53;
+
+  /**
+   * One more than the largest significand that plainScale accepts. A
+   * double is accurate enough that rounding it times 10^scale gives
+   * back any significand this small.
+   */
+  static final long MAX_PLAIN = 1_000_000_000_000_000L;
+
+  /**
+   * The most digits after the point that plainScale accepts.
+   */
+  static final int MAX_SCALE = 18;
+
   // +--------+------------------------------------------------------
   // | Fields |
   // +--------+
 
   /**
-   * The underlying double.
+   * The value, rounded to the nearest double.
    */
-  BigDecimal value;
+  final double value;
+
+  /**
+   * The text the value was written with, or null if it was not built
+   * from text.
+   */
+  final String digits;
+
+  /**
+   * The exact value, once someone has asked for it.
+   */
+  BigDecimal decimal;
 
   // +--------------+------------------------------------------------
   // | Constructors |
@@ -26,21 +68,36 @@ public class JSONReal implements JSONValue {
    * Create a new real given the underlying string.
    */
   public JSONReal(String str) {
-    this.value = new BigDecimal(str);
+    this.value = parseDouble(str);
+    this.digits = str;
   } // JSONReal(String)
 
+  /**
+   * Create a new real given its value and the text it was read from.
+   */
+  JSONReal(double value, String digits) {
+    this.value = value;
+    this.digits = digits;
+  } // JSONReal(double, String)
+
   /**
    * Create a new real given a BigDecimal.
    */
   public JSONReal(BigDecimal value) {
-    this.value = value;
+    this.value = value.doubleValue();
+    this.digits = null;
+    this.decimal = value;
   } // JSONReal(BigDecimal)
 
   /**
    * Create a new real given a double.
    */
   public JSONReal(double d) {
-    this.value = BigDecimal.valueOf(d);
+    if (Double.isNaN(d) || Double.isInfinite(d)) {
+      throw new NumberFormatException("Infinite or NaN");
+    } // if
+    this.value = d;
+    this.digits = null;
   } // JSONReal(double)
 
   // +-------------------------+-------------------------------------
@@ -51,7 +108,12 @@ public class JSONReal implements JSONValue {
    * Convert to a string (e.g., for printing).
    */
   public String toString() {
-    return this.value.toString();
+    if (this.digits != null) {
+      return this.digits;
+    } else if (this.decimal != null) {
+      return this.decimal.toString();
+    } // if
+    return Double.toString(this.value);
   } // toString()
 
   /**
@@ -59,7 +121,11 @@ public class JSONReal implements JSONValue {
    */
   public boolean equals(Object other) {
     if (other instanceof JSONReal) {
-      return this.value.equals(((JSONReal) other).value);
+      JSONReal real = (JSONReal) other;
+      if ((this.digits != null) && this.digits.equals(real.digits)) {
+        return true;
+      } // if
+      return this.getValue().equals(real.getValue());
     } // if
     return false;
   } // equals(Object)
@@ -68,7 +134,7 @@ public class JSONReal implements JSONValue {
    * Compute the hash code.
    */
   public int hashCode() {
-    return this.value.hashCode();
+    return this.getValue().hashCode();
   } // hashCode()
 
   // +--------------------+------------------------------------------
@@ -79,15 +145,161 @@ public class JSONReal implements JSONValue {
    * Write the value as JSON.
    */
   public void writeJSON(PrintWriter pen) {
-    pen.print(this.toString());
-    pen.flush();
+    JSONWriter.writeJSON(this, pen);
   } // writeJSON(PrintWriter)
 
   /**
    * Get the underlying value.
    */
   public BigDecimal getValue() {
-    return this.value;
+    if (this.decimal == null) {
+      if (this.digits != null) {
+        this.decimal = new BigDecimal(this.digits);
+      } else {
+        this.decimal = BigDecimal.valueOf(this.value);
+      } // if
+    } // if
+    return this.decimal;
   } // getValue()
 
+  /**
+   * Get the value as a double.
+   */
+  public double doubleValue() {
+    return this.value;
+  } // doubleValue()
+
+  // +----------------+----------------------------------------------
+  // | Static methods |
+  // +----------------+
+
+  /**
+   * Convert a JSON number to the nearest double. When the digits fit in
+   * a double's significand and the power of ten is exact, one multiply
+   * or divide rounds correctly (Clinger's fast path), which covers
+   * nearly every number people write; anything else goes to
+   * Double.parseDouble.
+   */
+  static double parseDouble(String text) {
+    int length = text.length();
+    int i = 0;
+    boolean negative = (i < length) && (text.charAt(i) == '-');
+    if (negative) {
+      i++;
+    } // if
+    long significand = 0;
+    int digitCount = 0;
+    int scale = 0;
+    boolean point = false;
+    int start = i;
+    for (; i < length; i++) {
+      char ch = text.charAt(i);
+      if ((ch >= '0') && (ch <= '9')) {
+        if (digitCount < 18) {
+          significand = 10 * significand + (ch - '0');
+          if (significand != 0) {
+            digitCount++;
+          } // if
+        } else {
+          return slowDouble(text);
+        } // if
+        if (point) {
+          scale--;
+        } // if
+      } else if ((ch == '.') && !point) {
+        point = true;
+      } else {
+        break;
+      } // if
+    } // for
+    if ((i == start) || (point && (i == start + 1))) {
+      return slowDouble(text);
+    } // if
+    int exponent = 0;
+    if (i < length) {
+      char ch = text.charAt(i++);
+      if ((ch != 'e') && (ch != 'E')) {
+        return slowDouble(text);
+      } // if
+      boolean negativeExponent = false;
+      if ((i < length) && ((text.charAt(i) == '+') || (text.charAt(i) == '-'))) {
+        negativeExponent = (text.charAt(i++) == '-');
+      } // if
+      if ((i == length) || (length - i > 4)) {
+        return slowDouble(text);
+      } // if
+      for (; i < length; i++) {
+        ch = text.charAt(i);
+        if ((ch < '0') || (ch > '9')) {
+          return slowDouble(text);
+        } // if
+        exponent = 10 * exponent + (ch - '0');
+      } // for
+      if (negativeExponent) {
+        exponent = -exponent;
+      } // if
+    } // if
+    exponent += scale;
+    if ((significand > MAX_EXACT) || (exponent < -22) || (exponent > 22)) {
+      return slowDouble(text);
+    } // if
+    double result = significand;
+    if (exponent < 0) {
+      result /= POWERS_OF_TEN[-exponent];
+    } else {
+      result *= POWERS_OF_TEN[exponent];
+    } // if
+    return negative ? -result : result;
+  } // parseDouble(String)
+
+  /**
+   * Get the number of digits after the point in a real written plainly
+   * (such as 2.50 or -0.001), or -1 if it has an exponent, more than
+   * MAX_SCALE digits after the point, or a significand of MAX_PLAIN or
+   * more. A real that passes can be written again from its double and
+   * this number alone, digit for digit.
+   */
+  static int plainScale(String text) {
+    int length = text.length();
+    int i = ((length > 0) && (text.charAt(0) == '-')) ? 1 : 0;
+    if ((i + 1 < length) && (text.charAt(i) == '0') && (text.charAt(i + 1) != '.')) {
+      return -1;
+    } // if
+    long significand = 0;
+    int point = -1;
+    for (; i < length; i++) {
+      char ch = text.charAt(i);
+      if ((ch >= '0') && (ch <= '9')) {
+        significand = 10 * significand + (ch - '0');
+        if (significand >= MAX_PLAIN) {
+          return -1;
+        } // if
+      } else if ((ch == '.') && (point < 0)) {
+        point = i;
+      } else {
+        return -1;
+      } // if
+    } // for
+    int scale = length - point - 1;
+    if ((point < 1) || (scale == 0) || (scale > MAX_SCALE)
+        || ((point == 1) && (text.charAt(0) == '-'))) {
+      return -1;
+    } // if
+    return scale;
+  } // plainScale(String)
+
+  /**
+   * Convert a number to a double the slow way. Double.parseDouble also
+   * accepts things like NaN, Infinity, and hex, which we reject.
+   */
+  static double slowDouble(String text) {
+    for (int i = 0; i < text.length(); i++) {
+      char ch = text.charAt(i);
+      if (Character.isLetter(ch) && (ch != 'e') && (ch != 'E')) {
+        throw new NumberFormatException("Invalid number: " + text);
+      } // if
+    } // for
+    return Double.parseDouble(text);
+  } // slowDouble(String)
+
 } // class JSONReal
@@ -0,0 +1,213 @@
+/**
+ * Facts about a parsed document: how much input it took, how many
+ * values of each kind it holds, how deeply it nests, and how long its
+ * longest string (key or value) is. These are what a JSONListener is
+ * told after each parse. They are counted token by token as the
+ * document is read, so they cover only what was read: everything up to
+ * the error for a failed parse, and nothing inside an array or hash
+ * that was skipped (e.g., by a path or an unknown field of a bound
+ * object).
+ *
+ * @author Marina Ananias
+ * @author Linda Jing
+ * @author Keely Miyamoto
+ */
+public class JSONStats {
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The number of bytes (or characters, for text input) read.
+   */
+  long input;
+
+  /**
+   * The number of hashes.
+   */
+  long hashes;
+
+  /**
+   * The number of arrays.
+   */
+  long arrays;
+
+  /**
+   * The number of string values (not counting keys).
+   */
+  long strings;
+
+  /**
+   * The number of integers.
+   */
+  long integers;
+
+  /**
+   * The number of reals.
+   */
+  long reals;
+
+  /**
+   * The number of constants (true, false, and null).
+   */
+  long constants;
+
+  /**
+   * The deepest nesting of arrays and hashes; 0 for a lone scalar.
+   */
+  int maxDepth;
+
+  /**
+   * The length of the longest key or string value.
+   */
+  int longestString;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Start with nothing counted.
+   */
+  JSONStats() {
+  } // JSONStats()
+
+  // +-------------------------+-------------------------------------
+  // | Standard object methods |
+  // +-------------------------+
+
+  /**
+   * Convert to a string (e.g., for logging).
+   */
+  public String toString() {
+    return "{input: " + this.input + ", hashes: " + this.hashes + ", arrays: " + this.arrays
+        + ", strings: " + this.strings + ", integers: " + this.integers + ", reals: "
+        + this.reals + ", constants: " + this.constants + ", maxDepth: " + this.maxDepth
+        + ", longestString: " + this.longestString + "}";
+  } // toString()
+
+  // +---------+-----------------------------------------------------
+  // | Getters |
+  // +---------+
+
+  /**
+   * Get the number of bytes (or characters, for text input) read.
+   */
+  public long input() {
+    return this.input;
+  } // input()
+
+  /**
+   * Get the number of hashes.
+   */
+  public long hashes() {
+    return this.hashes;
+  } // hashes()
+
+  /**
+   * Get the number of arrays.
+   */
+  public long arrays() {
+    return this.arrays;
+  } // arrays()
+
+  /**
+   * Get the number of string values (not counting keys).
+   */
+  public long strings() {
+    return this.strings;
+  } // strings()
+
+  /**
+   * Get the number of integers.
+   */
+  public long integers() {
+    return this.integers;
+  } // integers()
+
+  /**
+   * Get the number of reals.
+   */
+  public long reals() {
+    return this.reals;
+  } // reals()
+
+  /**
+   * Get the number of constants (true, false, and null).
+   */
+  public long constants() {
+    return this.constants;
+  } // constants()
+
+  /**
+   * Get the deepest nesting of arrays and hashes.
+   */
+  public int maxDepth() {
+    return this.maxDepth;
+  } // maxDepth()
+
+  /**
+   * Get the length of the longest key or string value.
+   */
+  public int longestString() {
+    return this.longestString;
+  } // longestString()
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Count a value that was just read. For an array or hash, depth is
+   * how many arrays and hashes (including it) it is in; for a string,
+   * text is its text.
+   */
+  void count(JSONToken token, int depth, String text) {
+    switch (token) {
+      case START_HASH:
+        this.hashes++;
+        this.maxDepth = Math.max(this.maxDepth, depth);
+        break;
+      case START_ARRAY:
+        this.arrays++;
+        this.maxDepth = Math.max(this.maxDepth, depth);
+        break;
+      case STRING:
+        this.strings++;
+        this.longestString = Math.max(this.longestString, text.length());
+        break;
+      case INTEGER:
+        this.integers++;
+        break;
+      case REAL:
+        this.reals++;
+        break;
+      default:
+        this.constants++;
+        break;
+    } // switch
+  } // count(JSONToken, int, String)
+
+  /**
+   * Count a key that was just read.
+   */
+  void key(String text) {
+    this.longestString = Math.max(this.longestString, text.length());
+  } // key(String)
+
+  /**
+   * Add what was counted in part of the document, which sits inside
+   * depth arrays and hashes. Parts may be added from several threads.
+   */
+  synchronized void add(JSONStats part, int depth) {
+    this.hashes += part.hashes;
+    this.arrays += part.arrays;
+    this.strings += part.strings;
+    this.integers += part.integers;
+    this.reals += part.reals;
+    this.constants += part.constants;
+    this.maxDepth = Math.max(this.maxDepth, part.maxDepth + depth);
+    this.longestString = Math.max(this.longestString, part.longestString);
+  } // add(JSONStats, int)
+
+} // class JSONStats
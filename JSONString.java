@@ -15,7 +15,7 @@ public class JSONString implements JSONValue {
   /**
    * The underlying string.
    */
-  String value;
+  final String value;
 
   // +--------------+------------------------------------------------
   // | Constructors |
@@ -64,8 +64,7 @@ public class JSONString implements JSONValue {
    * Write the value as JSON.
    */
   public void writeJSON(PrintWriter pen) {
-    pen.print("\"" + this.value + "\"");
-    pen.flush();
+    JSONWriter.writeJSON(this, pen);
   } // writeJSON(PrintWriter)
 
   /**
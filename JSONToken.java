@@ -0,0 +1,74 @@
+/**
+ * The kinds of tokens a JSONReader produces.
+ *
+ * @author Marina Ananias
+ * @author Linda Jing
+ * @author Keely Miyamoto
+ */
+public enum JSONToken {
+  /**
+   * The '[' that starts an array.
+   */
+  START_ARRAY,
+
+  /**
+   * The ']' that ends an array.
+   */
+  END_ARRAY,
+
+  /**
+   * The '{' that starts a hash.
+   */
+  START_HASH,
+
+  /**
+   * The '}' that ends a hash.
+   */
+  END_HASH,
+
+  /**
+   * A string used as the key of a hash entry.
+   */
+  KEY,
+
+  /**
+   * A string value.
+   */
+  STRING,
+
+  /**
+   * A number without a fraction or exponent.
+   */
+  INTEGER,
+
+  /**
+   * A number with a fraction or exponent.
+   */
+  REAL,
+
+  /**
+   * The literal true.
+   */
+  TRUE,
+
+  /**
+   * The literal false.
+   */
+  FALSE,
+
+  /**
+   * The literal null.
+   */
+  NULL,
+
+  /**
+   * The end of the input.
+   */
+  END,
+
+  /**
+   * Not a token: a non-blocking parser needs more input before it can
+   * tell what the next token is.
+   */
+  NEED_MORE_INPUT
+} // enum JSONToken
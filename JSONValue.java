@@ -1,4 +1,7 @@
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.nio.ByteBuffer;
 
 /**
  * JSON values.
@@ -36,6 +39,27 @@ public interface JSONValue {
    */
   public void writeJSON(PrintWriter pen);
 
+  /**
+   * Write the value as JSON to a stream, in UTF-8.
+   */
+  public default void writeTo(OutputStream out) throws IOException {
+    JSONByteWriter.writeTo(this, out);
+  } // writeTo(OutputStream)
+
+  /**
+   * Put the value as JSON into a buffer, in UTF-8.
+   */
+  public default void writeTo(ByteBuffer target) {
+    JSONByteWriter.writeTo(this, target);
+  } // writeTo(ByteBuffer)
+
+  /**
+   * Get the value as JSON, in UTF-8.
+   */
+  public default byte[] toBytes() {
+    return JSONByteWriter.toBytes(this);
+  } // toBytes()
+
   /**
    * Get the underlying value.
    */
@@ -0,0 +1,327 @@
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+
+/**
+ * Writes JSON values as text. A writer walks the tree itself and
+ * copies characters into its own buffer, handing them to the output a
+ * buffer at a time, so the output is never built up as strings and is
+ * only flushed when we are done.
+ *
+ * @author Marina Ananias
+ * @author Linda Jing
+ * @author Keely Miyamoto
+ */
+public class JSONWriter {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The number of characters we buffer before handing them on.
+   */
+  static final int BUFFER_SIZE = 8192;
+
+  /**
+   * Hex digits, for unicode escapes.
+   */
+  static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * Where the text goes.
+   */
+  Appendable out;
+
+  /**
+   * The characters we have not handed on yet.
+   */
+  char[] buf;
+
+  /**
+   * The number of characters in buf.
+   */
+  int count;
+
+  /**
+   * The number of characters handed to the output so far.
+   */
+  long written;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Build a new writer that writes to out.
+   */
+  public JSONWriter(Appendable out) {
+    this.out = out;
+    this.buf = new char[BUFFER_SIZE];
+    this.count = 0;
+  } // JSONWriter(Appendable)
+
+  // +----------------+----------------------------------------------
+  // | Static methods |
+  // +----------------+
+
+  /**
+   * Get a value as JSON text.
+   */
+  public static String toJSON(JSONValue value) {
+    StringBuilder result = new StringBuilder();
+    JSONWriter writer = new JSONWriter(result);
+    try {
+      JSONEvents.write("toJSON", writer, value);
+    } catch (IOException e) {
+      // A StringBuilder doesn't throw.
+      throw new UncheckedIOException(e);
+    } // try
+    return result.toString();
+  } // toJSON(JSONValue)
+
+  /**
+   * Write a value to a PrintWriter and flush it. (This is what the
+   * writeJSON methods use.)
+   */
+  static void writeJSON(JSONValue value, PrintWriter pen) {
+    JSONWriter writer = new JSONWriter(pen);
+    try {
+      JSONEvents.write("writeJSON", writer, value);
+    } catch (IOException e) {
+      // A PrintWriter doesn't throw.
+      throw new UncheckedIOException(e);
+    } // try
+  } // writeJSON(JSONValue, PrintWriter)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Write a value. Strings and keys are quoted and escaped.
+   */
+  public void write(JSONValue value) throws IOException {
+    if (value instanceof JSONString) {
+      writeString(((JSONString) value).value);
+    } else if (value instanceof JSONHash) {
+      writeHash((JSONHash) value);
+    } else if (value instanceof JSONArray) {
+      writeArray((JSONArray) value);
+    } else if (value instanceof JSONInteger) {
+      JSONInteger integer = (JSONInteger) value;
+      if (integer.big == null) {
+        writeLong(integer.value);
+      } else {
+        append(integer.big.toString());
+      } // if
+    } else {
+      append(value.toString());
+    } // if
+  } // write(JSONValue)
+
+  /**
+   * Hand everything written so far to the output, and flush the output
+   * if it can be flushed.
+   */
+  public void flush() throws IOException {
+    drain();
+    if (this.out instanceof Flushable) {
+      ((Flushable) this.out).flush();
+    } // if
+  } // flush()
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Write the elements of an array.
+   */
+  void writeArray(JSONArray array) throws IOException {
+    array.materialize();
+    append('[');
+    if (array.values != null) {
+      for (int i = 0; i < array.values.size(); i++) {
+        if (i > 0) {
+          append(',');
+        } // if
+        write(array.values.get(i));
+      } // for
+    } else {
+      for (int i = 0; i < array.size; i++) {
+        if (i > 0) {
+          append(',');
+        } // if
+        if (array.longs != null) {
+          writeLong(array.longs[i]);
+        } else if (array.scales[i] == JSONArray.SCALE_INTEGER) {
+          writeLong((long) array.doubles[i]);
+        } else if (array.scales[i] == JSONArray.SCALE_TEXT) {
+          append(array.texts[i]);
+        } else {
+          writeDecimal(array.isNegative(i), array.significand(i), array.scales[i]);
+        } // if
+      } // for
+    } // if
+    append(']');
+  } // writeArray(JSONArray)
+
+  /**
+   * Write the entries of a hash.
+   */
+  void writeHash(JSONHash hash) throws IOException {
+    hash.materialize();
+    append('{');
+    for (int i = 0; i < hash.size; i++) {
+      if (i > 0) {
+        append(',');
+      } // if
+      writeString(hash.keys[i].value);
+      append(':');
+      write(hash.values[i]);
+    } // for
+    append('}');
+  } // writeHash(JSONHash)
+
+  /**
+   * Write a string in quotes, escaping the characters JSON requires.
+   */
+  void writeString(String str) throws IOException {
+    append('\"');
+    int length = str.length();
+    for (int i = 0; i < length; i++) {
+      char ch = str.charAt(i);
+      if ((ch == '\"') || (ch == '\\')) {
+        append('\\');
+        append(ch);
+      } else if (ch >= 0x20) {
+        append(ch);
+      } else {
+        append('\\');
+        switch (ch) {
+          case '\b':
+            append('b');
+            break;
+          case '\f':
+            append('f');
+            break;
+          case '\n':
+            append('n');
+            break;
+          case '\r':
+            append('r');
+            break;
+          case '\t':
+            append('t');
+            break;
+          default:
+            append('u');
+            append('0');
+            append('0');
+            append(HEX[ch >> 4]);
+            append(HEX[ch & 0xF]);
+            break;
+        } // switch
+      } // if
+    } // for
+    append('\"');
+  } // writeString(String)
+
+  /**
+   * Write an integer without making a string of it.
+   */
+  void writeLong(long value) throws IOException {
+    if (value == Long.MIN_VALUE) {
+      append(Long.toString(value));
+      return;
+    } // if
+    if (this.count + 20 > this.buf.length) {
+      drain();
+    } // if
+    if (value < 0) {
+      this.buf[this.count++] = '-';
+      value = -value;
+    } // if
+    int digits = 1;
+    for (long rest = value; rest >= 10; rest /= 10) {
+      digits++;
+    } // for
+    int end = this.count + digits;
+    int i = end;
+    do {
+      this.buf[--i] = (char) ('0' + (value % 10));
+      value /= 10;
+    } while (value != 0);
+    this.count = end;
+  } // writeLong(long)
+
+  /**
+   * Write a real given its digits as a whole number and how many of
+   * them go after the point.
+   */
+  void writeDecimal(boolean negative, long significand, int scale) throws IOException {
+    if (negative) {
+      append('-');
+    } // if
+    long unit = JSONArray.TENS[scale];
+    writeLong(significand / unit);
+    append('.');
+    long fraction = significand % unit;
+    for (int i = scale - 1; i >= 0; i--) {
+      append((char) ('0' + (fraction / JSONArray.TENS[i]) % 10));
+    } // for
+  } // writeDecimal(boolean, long, int)
+
+  /**
+   * Write one character.
+   */
+  void append(char ch) throws IOException {
+    if (this.count == this.buf.length) {
+      drain();
+    } // if
+    this.buf[this.count++] = ch;
+  } // append(char)
+
+  /**
+   * Write a string as is.
+   */
+  void append(String str) throws IOException {
+    int length = str.length();
+    if (this.count + length > this.buf.length) {
+      drain();
+      if (length > this.buf.length) {
+        this.out.append(str);
+        this.written += length;
+        return;
+      } // if
+    } // if
+    str.getChars(0, length, this.buf, this.count);
+    this.count += length;
+  } // append(String)
+
+  /**
+   * Hand the buffered characters to the output.
+   */
+  void drain() throws IOException {
+    if (this.count == 0) {
+      return;
+    } // if
+    if (this.out instanceof Writer) {
+      ((Writer) this.out).write(this.buf, 0, this.count);
+    } else if (this.out instanceof StringBuilder) {
+      ((StringBuilder) this.out).append(this.buf, 0, this.count);
+    } else {
+      this.out.append(CharBuffer.wrap(this.buf, 0, this.count));
+    } // if
+    this.written += this.count;
+    this.count = 0;
+  } // drain()
+
+} // class JSONWriter
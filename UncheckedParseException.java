@@ -0,0 +1,44 @@
+import java.text.ParseException;
+
+/**
+ * A ParseException, wrapped so that it can escape from places that
+ * cannot throw checked exceptions, such as streams and iterators.
+ *
+ * @author Marina Ananias
+ * @author Linda Jing
+ * @author Keely Miyamoto
+ */
+public class UncheckedParseException extends RuntimeException {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The version of the serialized form.
+   */
+  private static final long serialVersionUID = 1L;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Wrap a ParseException.
+   */
+  public UncheckedParseException(String message, ParseException cause) {
+    super(message, cause);
+  } // UncheckedParseException(String, ParseException)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Get the underlying ParseException.
+   */
+  @Override
+  public ParseException getCause() {
+    return (ParseException) super.getCause();
+  } // getCause()
+
+} // class UncheckedParseException
@@ -0,0 +1,133 @@
+package mpjson.bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Handles on the parts of the library we measure. The library lives in
+ * the default package, which code in a named package (and JMH insists on
+ * one) cannot name, so we reach it through method handles typed with
+ * Object in place of the JSON classes. The handles are constants, so the
+ * JIT inlines straight through them.
+ *
+ * @author Marina Ananias
+ * @author Linda Jing
+ * @author Keely Miyamoto
+ */
+final class Core {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * JSON.parse(byte[]).
+   */
+  static final MethodHandle PARSE_BYTES;
+
+  /**
+   * JSON.parse(String).
+   */
+  static final MethodHandle PARSE_STRING;
+
+  /**
+   * JSON.parseLines(byte[]).
+   */
+  static final MethodHandle PARSE_LINES;
+
+  /**
+   * JSON.select(byte[], String).
+   */
+  static final MethodHandle SELECT;
+
+  /**
+   * JSON.toJSON(JSONValue).
+   */
+  static final MethodHandle TO_JSON;
+
+  /**
+   * JSONValue.toBytes().
+   */
+  static final MethodHandle TO_BYTES;
+
+  /**
+   * new JSONHash().
+   */
+  static final MethodHandle NEW_HASH;
+
+  /**
+   * new JSONString(String).
+   */
+  static final MethodHandle NEW_STRING;
+
+  /**
+   * JSONInteger.valueOf(long).
+   */
+  static final MethodHandle INTEGER;
+
+  /**
+   * JSONHash.get(JSONString).
+   */
+  static final MethodHandle HASH_GET;
+
+  /**
+   * JSONHash.set(JSONString, JSONValue).
+   */
+  static final MethodHandle HASH_SET;
+
+  /**
+   * JSONHash.iterator().
+   */
+  static final MethodHandle HASH_ITERATOR;
+
+  static {
+    try {
+      MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+      Class<?> json = Class.forName("JSON");
+      Class<?> value = Class.forName("JSONValue");
+      Class<?> hash = Class.forName("JSONHash");
+      Class<?> string = Class.forName("JSONString");
+      Class<?> integer = Class.forName("JSONInteger");
+      PARSE_BYTES = lookup.findStatic(json, "parse", MethodType.methodType(value, byte[].class))
+          .asType(MethodType.methodType(Object.class, byte[].class));
+      PARSE_STRING = lookup.findStatic(json, "parse", MethodType.methodType(value, String.class))
+          .asType(MethodType.methodType(Object.class, String.class));
+      PARSE_LINES = lookup.findStatic(json, "parseLines",
+          MethodType.methodType(Stream.class, byte[].class));
+      SELECT = lookup.findStatic(json, "select",
+          MethodType.methodType(List.class, byte[].class, String.class));
+      TO_JSON = lookup.findStatic(json, "toJSON", MethodType.methodType(String.class, value))
+          .asType(MethodType.methodType(String.class, Object.class));
+      TO_BYTES = lookup.findVirtual(value, "toBytes", MethodType.methodType(byte[].class))
+          .asType(MethodType.methodType(byte[].class, Object.class));
+      NEW_HASH = lookup.findConstructor(hash, MethodType.methodType(void.class))
+          .asType(MethodType.methodType(Object.class));
+      NEW_STRING = lookup.findConstructor(string, MethodType.methodType(void.class, String.class))
+          .asType(MethodType.methodType(Object.class, String.class));
+      INTEGER = lookup.findStatic(integer, "valueOf", MethodType.methodType(integer, long.class))
+          .asType(MethodType.methodType(Object.class, long.class));
+      HASH_GET = lookup.findVirtual(hash, "get", MethodType.methodType(value, string))
+          .asType(MethodType.methodType(Object.class, Object.class, Object.class));
+      HASH_SET = lookup.findVirtual(hash, "set", MethodType.methodType(void.class, string, value))
+          .asType(MethodType.methodType(void.class, Object.class, Object.class, Object.class));
+      HASH_ITERATOR = lookup.findVirtual(hash, "iterator", MethodType.methodType(Iterator.class))
+          .asType(MethodType.methodType(Iterator.class, Object.class));
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    } // try
+  } // static
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Nobody builds one of these.
+   */
+  private Core() {
+  } // Core()
+
+} // class Core
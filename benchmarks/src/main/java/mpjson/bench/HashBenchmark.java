@@ -0,0 +1,120 @@
+package mpjson.bench;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Throughput of JSONHash get, set, and iterator. The sizes straddle the
+ * point where a hash stops scanning its entries and builds a table.
+ *
+ * @author Marina Ananias
+ * @author Linda Jing
+ * @author Keely Miyamoto
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HashBenchmark {
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The number of entries.
+   */
+  @Param({"4", "8", "64", "4096"})
+  public int size;
+
+  /**
+   * The keys (JSONStrings), in insertion order.
+   */
+  Object[] keys;
+
+  /**
+   * The values (JSONIntegers), in the same order.
+   */
+  Object[] values;
+
+  /**
+   * A hash holding every key.
+   */
+  Object hash;
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Build the keys, values, and full hash.
+   */
+  @Setup
+  public void setup() throws Throwable {
+    this.keys = new Object[this.size];
+    this.values = new Object[this.size];
+    for (int i = 0; i < this.size; i++) {
+      this.keys[i] = (Object) Core.NEW_STRING.invokeExact("key" + i);
+      this.values[i] = (Object) Core.INTEGER.invokeExact((long) i);
+    } // for
+    this.hash = fill();
+  } // setup()
+
+  /**
+   * Look up every key.
+   */
+  @Benchmark
+  public void get(Blackhole sink) throws Throwable {
+    for (Object key : this.keys) {
+      sink.consume((Object) Core.HASH_GET.invokeExact(this.hash, key));
+    } // for
+  } // get(Blackhole)
+
+  /**
+   * Build a new hash holding every key.
+   */
+  @Benchmark
+  public Object set() throws Throwable {
+    return fill();
+  } // set()
+
+  /**
+   * Visit every entry.
+   */
+  @Benchmark
+  public void iterator(Blackhole sink) throws Throwable {
+    Iterator<?> entries = (Iterator<?>) Core.HASH_ITERATOR.invokeExact(this.hash);
+    while (entries.hasNext()) {
+      sink.consume(entries.next());
+    } // while
+  } // iterator(Blackhole)
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Build a hash and set every key in it.
+   */
+  Object fill() throws Throwable {
+    Object result = (Object) Core.NEW_HASH.invokeExact();
+    for (int i = 0; i < this.size; i++) {
+      Core.HASH_SET.invokeExact(result, this.keys[i], this.values[i]);
+    } // for
+    return result;
+  } // fill()
+
+} // class HashBenchmark
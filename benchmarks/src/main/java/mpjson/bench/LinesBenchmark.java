@@ -0,0 +1,87 @@
+package mpjson.bench;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of JSON.parseLines on newline-delimited records, compared
+ * with parsing the same records as one array.
+ *
+ * @author Marina Ananias
+ * @author Linda Jing
+ * @author Keely Miyamoto
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LinesBenchmark {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The number of records.
+   */
+  static final int COUNT = 10000;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * One record per line.
+   */
+  byte[] lines;
+
+  /**
+   * The same records in an array.
+   */
+  byte[] array;
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Build the records.
+   */
+  @Setup
+  public void setup() {
+    this.lines = Shapes.lines(COUNT).getBytes(StandardCharsets.UTF_8);
+    this.array = Shapes.records(COUNT, ",", "[", "]").getBytes(StandardCharsets.UTF_8);
+  } // setup()
+
+  /**
+   * Parse the records one line at a time, on this thread.
+   */
+  @SuppressWarnings("unchecked")
+  @Benchmark
+  public long parseLines() throws Throwable {
+    try (Stream<Object> records = (Stream<Object>) Core.PARSE_LINES.invokeExact(this.lines)) {
+      return records.count();
+    } // try
+  } // parseLines()
+
+  /**
+   * Parse the records as a single array.
+   */
+  @Benchmark
+  public Object parseArray() throws Throwable {
+    return (Object) Core.PARSE_BYTES.invokeExact(this.array);
+  } // parseArray()
+
+} // class LinesBenchmark
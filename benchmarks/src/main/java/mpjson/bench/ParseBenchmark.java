@@ -0,0 +1,81 @@
+package mpjson.bench;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of JSON.parse on each shape of document, from bytes and
+ * from a string.
+ *
+ * @author Marina Ananias
+ * @author Linda Jing
+ * @author Keely Miyamoto
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The kind of document.
+   */
+  @Param({"deep", "wide", "strings", "numbers", "records"})
+  public String shape;
+
+  /**
+   * The document, as text.
+   */
+  String text;
+
+  /**
+   * The document, as UTF-8 bytes.
+   */
+  byte[] bytes;
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Build the document.
+   */
+  @Setup
+  public void setup() {
+    this.text = Shapes.document(this.shape);
+    this.bytes = this.text.getBytes(StandardCharsets.UTF_8);
+  } // setup()
+
+  /**
+   * Parse the UTF-8 bytes.
+   */
+  @Benchmark
+  public Object parseBytes() throws Throwable {
+    return (Object) Core.PARSE_BYTES.invokeExact(this.bytes);
+  } // parseBytes()
+
+  /**
+   * Parse the text.
+   */
+  @Benchmark
+  public Object parseString() throws Throwable {
+    return (Object) Core.PARSE_STRING.invokeExact(this.text);
+  } // parseString()
+
+} // class ParseBenchmark
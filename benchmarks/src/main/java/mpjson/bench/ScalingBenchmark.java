@@ -0,0 +1,102 @@
+package mpjson.bench;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Total throughput of JSON.parse with one, two, four, and eight threads
+ * parsing at once, each its own document. Since parsers share no
+ * state, the total should grow with the thread count up to the number
+ * of cores.
+ *
+ * @author Marina Ananias
+ * @author Linda Jing
+ * @author Keely Miyamoto
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScalingBenchmark {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * Hands each thread a different seed.
+   */
+  static final AtomicInteger SEEDS = new AtomicInteger();
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * This thread's document, as UTF-8 bytes.
+   */
+  byte[] bytes;
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Build this thread's document.
+   */
+  @Setup
+  public void setup() {
+    this.bytes = Shapes.records(1000, ",", "[", "]", SEEDS.incrementAndGet())
+        .getBytes(StandardCharsets.UTF_8);
+  } // setup()
+
+  /**
+   * Parse on one thread.
+   */
+  @Benchmark
+  @Threads(1)
+  public Object threads1() throws Throwable {
+    return (Object) Core.PARSE_BYTES.invokeExact(this.bytes);
+  } // threads1()
+
+  /**
+   * Parse on two threads.
+   */
+  @Benchmark
+  @Threads(2)
+  public Object threads2() throws Throwable {
+    return (Object) Core.PARSE_BYTES.invokeExact(this.bytes);
+  } // threads2()
+
+  /**
+   * Parse on four threads.
+   */
+  @Benchmark
+  @Threads(4)
+  public Object threads4() throws Throwable {
+    return (Object) Core.PARSE_BYTES.invokeExact(this.bytes);
+  } // threads4()
+
+  /**
+   * Parse on eight threads.
+   */
+  @Benchmark
+  @Threads(8)
+  public Object threads8() throws Throwable {
+    return (Object) Core.PARSE_BYTES.invokeExact(this.bytes);
+  } // threads8()
+
+} // class ScalingBenchmark
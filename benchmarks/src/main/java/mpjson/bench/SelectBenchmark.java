@@ -0,0 +1,70 @@
+package mpjson.bench;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Pulling one field out of every record with a path, which skips the
+ * rest of each record with the raw bracket-counting scan, compared with
+ * building the whole tree.
+ *
+ * @author Marina Ananias
+ * @author Linda Jing
+ * @author Keely Miyamoto
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SelectBenchmark {
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * An array of records.
+   */
+  byte[] bytes;
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Build the records.
+   */
+  @Setup
+  public void setup() {
+    this.bytes = Shapes.records(10000, ",", "[", "]").getBytes(StandardCharsets.UTF_8);
+  } // setup()
+
+  /**
+   * Select the id of every record.
+   */
+  @Benchmark
+  public List<?> select() throws Throwable {
+    return (List<?>) Core.SELECT.invokeExact(this.bytes, "/*/id");
+  } // select()
+
+  /**
+   * Parse every record in full.
+   */
+  @Benchmark
+  public Object parse() throws Throwable {
+    return (Object) Core.PARSE_BYTES.invokeExact(this.bytes);
+  } // parse()
+
+} // class SelectBenchmark
@@ -0,0 +1,170 @@
+package mpjson.bench;
+
+import java.util.Random;
+
+/**
+ * Generators for the documents we benchmark with. Each one stands for a
+ * kind of input that stresses a different part of the parser. They are
+ * seeded, so every run sees the same bytes.
+ *
+ * @author Marina Ananias
+ * @author Linda Jing
+ * @author Keely Miyamoto
+ */
+final class Shapes {
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Nobody builds one of these.
+   */
+  private Shapes() {
+  } // Shapes()
+
+  // +----------------+----------------------------------------------
+  // | Static methods |
+  // +----------------+
+
+  /**
+   * Build the document for a shape: "deep" (hashes and arrays nested
+   * hundreds of levels), "wide" (a single hash with many keys),
+   * "strings" (long strings with some escapes), "numbers" (a large
+   * array of integers and reals), or "records" (an array of small,
+   * similar hashes, as in a typical API response).
+   */
+  static String document(String shape) {
+    switch (shape) {
+      case "deep":
+        return deep(200, 50);
+      case "wide":
+        return wide(10000);
+      case "strings":
+        return strings(100, 10000);
+      case "numbers":
+        return numbers(100000);
+      case "records":
+        return records(10000, ",", "[", "]");
+      default:
+        throw new IllegalArgumentException("Unknown shape: " + shape);
+    } // switch
+  } // document(String)
+
+  /**
+   * Build newline-delimited records, one hash per line.
+   */
+  static String lines(int count) {
+    return records(count, "\n", "", "\n");
+  } // lines(int)
+
+  /**
+   * Build copies arrays, each holding hashes and arrays nested depth
+   * levels deep.
+   */
+  static String deep(int depth, int copies) {
+    StringBuilder out = new StringBuilder("[");
+    for (int c = 0; c < copies; c++) {
+      if (c > 0) {
+        out.append(',');
+      } // if
+      for (int d = 0; d < depth; d++) {
+        out.append((d % 2 == 0) ? "{\"level\": " + d + ", \"next\": " : "[" + d + ", ");
+      } // for
+      out.append("null");
+      for (int d = depth - 1; d >= 0; d--) {
+        out.append((d % 2 == 0) ? '}' : ']');
+      } // for
+    } // for
+    return out.append(']').toString();
+  } // deep(int, int)
+
+  /**
+   * Build a hash with size keys.
+   */
+  static String wide(int size) {
+    StringBuilder out = new StringBuilder("{");
+    for (int i = 0; i < size; i++) {
+      if (i > 0) {
+        out.append(", ");
+      } // if
+      out.append("\"key").append(i).append("\": ").append(i);
+    } // for
+    return out.append('}').toString();
+  } // wide(int)
+
+  /**
+   * Build an array of count strings, each about length characters long.
+   */
+  static String strings(int count, int length) {
+    Random random = new Random(207);
+    StringBuilder out = new StringBuilder("[");
+    for (int i = 0; i < count; i++) {
+      if (i > 0) {
+        out.append(", ");
+      } // if
+      out.append('"');
+      for (int j = 0; j < length; j++) {
+        int r = random.nextInt(200);
+        if (r == 0) {
+          out.append("\\n");
+        } else if (r == 1) {
+          out.append("\\\"");
+        } else if (r == 2) {
+          out.append("\\u00e9");
+        } else {
+          out.append((char) ('a' + (r % 26)));
+        } // if
+      } // for
+      out.append('"');
+    } // for
+    return out.append(']').toString();
+  } // strings(int, int)
+
+  /**
+   * Build an array of count numbers, three quarters integers.
+   */
+  static String numbers(int count) {
+    Random random = new Random(207);
+    StringBuilder out = new StringBuilder("[");
+    for (int i = 0; i < count; i++) {
+      if (i > 0) {
+        out.append(", ");
+      } // if
+      if (i % 4 == 3) {
+        out.append(random.nextInt(1000000) / 100.0);
+      } else {
+        out.append(random.nextInt());
+      } // if
+    } // for
+    return out.append(']').toString();
+  } // numbers(int)
+
+  /**
+   * Build count records separated by separator, between open and close.
+   */
+  static String records(int count, String separator, String open, String close) {
+    return records(count, separator, open, close, 207);
+  } // records(int, String, String, String)
+
+  /**
+   * Build count records separated by separator, between open and close,
+   * choosing their contents with a given seed.
+   */
+  static String records(int count, String separator, String open, String close, long seed) {
+    Random random = new Random(seed);
+    StringBuilder out = new StringBuilder(open);
+    for (int i = 0; i < count; i++) {
+      if (i > 0) {
+        out.append(separator);
+      } // if
+      out.append("{\"id\": ").append(i)
+          .append(", \"name\": \"user").append(random.nextInt(100000))
+          .append("\", \"active\": ").append(random.nextBoolean())
+          .append(", \"score\": ").append(random.nextInt(10000) / 100.0)
+          .append(", \"tags\": [\"a\", \"b\", \"c\"]")
+          .append(", \"address\": {\"city\": \"Grinnell\", \"zip\": \"50112\"}}");
+    } // for
+    return out.append(close).toString();
+  } // records(int, String, String, String, long)
+
+} // class Shapes
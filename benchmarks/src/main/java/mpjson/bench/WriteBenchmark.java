@@ -0,0 +1,74 @@
+package mpjson.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of serializing each shape of document, to a string and to
+ * UTF-8 bytes.
+ *
+ * @author Marina Ananias
+ * @author Linda Jing
+ * @author Keely Miyamoto
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WriteBenchmark {
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The kind of document.
+   */
+  @Param({"deep", "wide", "strings", "numbers", "records"})
+  public String shape;
+
+  /**
+   * The parsed document.
+   */
+  Object value;
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Parse the document we write.
+   */
+  @Setup
+  public void setup() throws Throwable {
+    this.value = (Object) Core.PARSE_STRING.invokeExact(Shapes.document(this.shape));
+  } // setup()
+
+  /**
+   * Write the document as a string.
+   */
+  @Benchmark
+  public String toJSON() throws Throwable {
+    return (String) Core.TO_JSON.invokeExact(this.value);
+  } // toJSON()
+
+  /**
+   * Write the document as UTF-8 bytes.
+   */
+  @Benchmark
+  public byte[] toBytes() throws Throwable {
+    return (byte[]) Core.TO_BYTES.invokeExact(this.value);
+  } // toBytes()
+
+} // class WriteBenchmark
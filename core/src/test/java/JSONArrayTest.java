@@ -0,0 +1,161 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for arrays: numbers are packed into a long[] or double[] and
+ * written back digit for digit, and any change that does not fit turns
+ * the array back into a list.
+ *
+ * @author Marina Ananias
+ * @author Linda Jing
+ * @author Keely Miyamoto
+ */
+public class JSONArrayTest {
+
+  /**
+   * Arrays of numbers with at least one real, which should all be
+   * packed into a double[].
+   */
+  static final String[] REALS = {
+      "[1729000000.123,1729000001.5]",
+      "[1.5,2.50]",
+      "[1e-05,2.5]",
+      "[0.0001,0.5]",
+      "[10000000.0,1.5]",
+      "[0,1.5]",
+      "[1,2,3.5,-4]",
+      "[-0.0,-1.25,9007199254740992]",
+      "[3.14159265358979323846,1.5,1E+400]",
+      "[0.000000000000000001,999999999999999.9]",
+  };
+
+  /**
+   * Every array of reals is packed and writes back as it was read,
+   * through both writers.
+   */
+  @Test
+  public void packsReals() throws Exception {
+    for (String document : REALS) {
+      JSONArray array = (JSONArray) JSON.parse(document);
+      assertNotNull(array.doubles, document);
+      assertWrites(document, array);
+    } // for
+  } // packsReals()
+
+  /**
+   * Integers that a double can't hold keep an array from being packed
+   * as doubles, but not from writing back the same.
+   */
+  @Test
+  public void keepsBigIntegers() throws Exception {
+    for (String document : new String[] {"[1.5,9007199254740993]", "[9007199254740993,1.5]"}) {
+      JSONArray array = (JSONArray) JSON.parse(document);
+      assertNull(array.doubles, document);
+      assertWrites(document, array);
+    } // for
+  } // keepsBigIntegers()
+
+  /**
+   * A large array of reals written with three places is packed, and
+   * every element reads back with the same digits.
+   */
+  @Test
+  public void roundTripsFixedPlaces() throws Exception {
+    Random random = new Random(17);
+    StringBuilder document = new StringBuilder("[");
+    String[] texts = new String[100000];
+    for (int i = 0; i < texts.length; i++) {
+      texts[i] = String.format(Locale.ROOT, "%.3f", (random.nextDouble() - 0.5) * 2e9);
+      document.append((i > 0) ? "," : "").append(texts[i]);
+    } // for
+    String text = document.append("]").toString();
+    JSONArray array = (JSONArray) JSON.parse(text);
+    assertNotNull(array.doubles);
+    for (int i = 0; i < texts.length; i++) {
+      assertEquals(new BigDecimal(texts[i]), ((JSONReal) array.get(i)).getValue());
+    } // for
+    assertWrites(text, array);
+  } // roundTripsFixedPlaces()
+
+  /**
+   * Packed and unpacked arrays convert to arrays of longs and doubles.
+   */
+  @Test
+  public void convertsToArrays() throws Exception {
+    assertArrayEquals(new long[] {1, -2, 3}, ((JSONArray) JSON.parse("[1, -2, 3]")).toLongArray());
+    assertArrayEquals(new double[] {1, -2, 3},
+        ((JSONArray) JSON.parse("[1, -2, 3]")).toDoubleArray());
+    JSONArray mixed = (JSONArray) JSON.parse("[0, 1.5, -2]");
+    assertArrayEquals(new double[] {0, 1.5, -2}, mixed.toDoubleArray());
+    assertThrows(ClassCastException.class, () -> mixed.toLongArray());
+    JSONArray strings = (JSONArray) JSON.parse("[1, \"a\"]");
+    assertThrows(ClassCastException.class, () -> strings.toLongArray());
+    assertThrows(ClassCastException.class, () -> strings.toDoubleArray());
+  } // convertsToArrays()
+
+  /**
+   * Adding or setting a value that does not fit turns a packed array
+   * into a list with the same elements.
+   */
+  @Test
+  public void generalizes() throws Exception {
+    JSONArray longs = (JSONArray) JSON.parse("[1, 2]");
+    longs.add(JSONInteger.valueOf(3));
+    assertNotNull(longs.longs);
+    longs.add(new JSONString("x"));
+    assertNull(longs.longs);
+    assertEquals("[1,2,3,\"x\"]", JSON.toJSON(longs));
+
+    JSONArray doubles = (JSONArray) JSON.parse("[1, 2.50]");
+    doubles.add(new JSONReal("3.0"));
+    assertNull(doubles.doubles);
+    assertEquals("[1,2.50,3.0]", JSON.toJSON(doubles));
+
+    JSONArray set = (JSONArray) JSON.parse("[1, 2]");
+    set.set(0, JSONInteger.valueOf(5));
+    assertNotNull(set.longs);
+    set.set(1, new JSONReal("0.5"));
+    assertNull(set.longs);
+    assertEquals("[5,0.5]", JSON.toJSON(set));
+
+    JSONArray reals = (JSONArray) JSON.parse("[1.5, 2.5]");
+    reals.set(0, new JSONString("y"));
+    assertNull(reals.doubles);
+    assertEquals("[\"y\",2.5]", JSON.toJSON(reals));
+  } // generalizes()
+
+  /**
+   * Packed arrays equal, and hash like, the same elements in a list.
+   */
+  @Test
+  public void equalsList() throws Exception {
+    JSONArray list = new JSONArray();
+    list.add(JSONInteger.valueOf(0));
+    list.add(new JSONReal("1.50"));
+    list.add(new JSONReal("1e-05"));
+    JSONArray packed = (JSONArray) JSON.parse("[0, 1.50, 1e-05]");
+    assertNotNull(packed.doubles);
+    assertEquals(list, packed);
+    assertEquals(packed, list);
+    assertEquals(list.hashCode(), packed.hashCode());
+    assertEquals(list.toString(), packed.toString());
+  } // equalsList()
+
+  /**
+   * Check that both writers write an array as the given text.
+   */
+  static void assertWrites(String expected, JSONArray array) throws Exception {
+    assertEquals(expected, JSON.toJSON(array));
+    assertEquals(expected, new String(JSONByteWriter.toBytes(array), StandardCharsets.UTF_8));
+  } // assertWrites(String, JSONArray)
+
+} // class JSONArrayTest
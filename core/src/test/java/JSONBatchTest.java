@@ -0,0 +1,86 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests for parsing many files at once: each file succeeds or fails on
+ * its own, with its own error.
+ *
+ * @author Marina Ananias
+ * @author Linda Jing
+ * @author Keely Miyamoto
+ */
+public class JSONBatchTest {
+
+  /**
+   * Where the files go.
+   */
+  @TempDir
+  Path directory;
+
+  /**
+   * Good, large, truncated, and missing files each get the right
+   * result, whatever the concurrency.
+   */
+  @Test
+  public void failsIndependently() throws Exception {
+    StringBuilder large = new StringBuilder("[");
+    while (large.length() < 2 * JSONBatch.MAP_THRESHOLD) {
+      large.append("{\"a\": [1, 2.5, \"x\"]}, ");
+    } // while
+    String big = large.append("null]").toString();
+    List<Path> files = new ArrayList<Path>();
+    files.add(write("good.json", "{\"a\": [1, 2]}"));
+    files.add(write("truncated.json", "{\"a\": [1, 2"));
+    files.add(this.directory.resolve("missing.json"));
+    files.add(write("large.json", big));
+    files.add(write("bad.json", "[1, 2] 3"));
+    for (int concurrency : new int[] {1, 2, JSONBatch.DEFAULT_CONCURRENCY}) {
+      List<CompletableFuture<JSONValue>> results = JSONBatch.parseAll(files, concurrency);
+      assertEquals(files.size(), results.size());
+      assertEquals(JSON.parse("{\"a\": [1, 2]}"), results.get(0).get());
+      assertInstanceOf(ParseException.class, cause(results.get(1)));
+      assertInstanceOf(IOException.class, cause(results.get(2)));
+      assertEquals(JSON.parse(big), results.get(3).get());
+      assertInstanceOf(ParseException.class, cause(results.get(4)));
+    } // for
+    assertEquals(JSON.parse(big), JSON.parseAll(files).get(3).get());
+  } // failsIndependently()
+
+  /**
+   * A concurrency below one is rejected.
+   */
+  @Test
+  public void rejectsConcurrency() throws Exception {
+    List<Path> files = List.of(write("good.json", "[]"));
+    assertThrows(IllegalArgumentException.class, () -> JSONBatch.parseAll(files, 0));
+    assertThrows(IllegalArgumentException.class, () -> JSONBatch.parseAll(files, -1));
+  } // rejectsConcurrency()
+
+  /**
+   * Write a file in the directory.
+   */
+  Path write(String name, String contents) throws IOException {
+    return Files.write(this.directory.resolve(name), contents.getBytes(StandardCharsets.UTF_8));
+  } // write(String, String)
+
+  /**
+   * Get the cause of a future's failure, failing if it succeeded.
+   */
+  static Throwable cause(CompletableFuture<JSONValue> result) {
+    return assertThrows(ExecutionException.class, () -> result.get()).getCause();
+  } // cause(CompletableFuture<JSONValue>)
+
+} // class JSONBatchTest
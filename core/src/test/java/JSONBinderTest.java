@@ -0,0 +1,196 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.text.ParseException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for binding JSON to records, classes, collections, and maps:
+ * what is written reads back the same, and values that don't fit are
+ * reported as ParseExceptions.
+ *
+ * @author Marina Ananias
+ * @author Linda Jing
+ * @author Keely Miyamoto
+ */
+public class JSONBinderTest {
+
+  /**
+   * Colors, for enums.
+   */
+  public enum Color { RED, GREEN }
+
+  /**
+   * A point.
+   */
+  public record Point(int x, int y) {
+  } // record Point
+
+  /**
+   * A record with generic, nested, and enum components.
+   */
+  public record Shape(String name, List<Point> points, Map<String, Long> sizes, Color color,
+      char mark, Double weight) {
+  } // record Shape
+
+  /**
+   * A record whose component takes any number.
+   */
+  public record Measure(Number value) {
+  } // record Measure
+
+  /**
+   * A class with a field of every kind.
+   */
+  public static class Account {
+    /**
+     * A string.
+     */
+    String owner;
+
+    /**
+     * A long.
+     */
+    long id;
+
+    /**
+     * A short.
+     */
+    short level;
+
+    /**
+     * A double.
+     */
+    double balance;
+
+    /**
+     * A boolean.
+     */
+    boolean active;
+
+    /**
+     * A char.
+     */
+    char grade;
+
+    /**
+     * A set.
+     */
+    Set<String> tags;
+
+    /**
+     * A map.
+     */
+    Map<String, Integer> limits;
+
+    /**
+     * A record.
+     */
+    Point home;
+
+    /**
+     * Any number.
+     */
+    Number extra;
+
+    /**
+     * Not bound.
+     */
+    transient int ignored;
+  } // class Account
+
+  /**
+   * Records, including nested records, lists, maps, enums, chars, and
+   * nulls, read back equal to what was written.
+   */
+  @Test
+  public void recordsRoundTrip() throws Exception {
+    Map<String, Long> sizes = new LinkedHashMap<String, Long>();
+    sizes.put("w", 3L);
+    sizes.put("h", -4000000000L);
+    Shape shape = new Shape("tri \"1\"", List.of(new Point(0, 0), new Point(1, -2)), sizes,
+        Color.GREEN, 'x', null);
+    String text = JSON.toJSON((Object) shape);
+    assertEquals("{\"name\":\"tri \\\"1\\\"\",\"points\":[{\"x\":0,\"y\":0},{\"x\":1,\"y\":-2}],"
+        + "\"sizes\":{\"w\":3,\"h\":-4000000000},\"color\":\"GREEN\",\"mark\":\"x\","
+        + "\"weight\":null}", text);
+    assertEquals(shape, JSON.parse(text, Shape.class));
+  } // recordsRoundTrip()
+
+  /**
+   * Classes read back with the same fields, skipping transient fields
+   * and unknown keys.
+   */
+  @Test
+  public void classesRoundTrip() throws Exception {
+    Account account = new Account();
+    account.owner = "café";
+    account.id = Long.MAX_VALUE;
+    account.level = -7;
+    account.balance = 0.1;
+    account.active = true;
+    account.grade = 'B';
+    account.tags = Set.of("a");
+    account.limits = Map.of("day", 100);
+    account.home = new Point(3, 4);
+    account.extra = 2.5;
+    account.ignored = 9;
+    String text = JSON.toJSON((Object) account);
+    Account copy = JSON.parse(text.replace("{\"owner\"", "{\"unknown\":[1,{}],\"owner\""),
+        Account.class);
+    assertEquals(text, JSON.toJSON((Object) copy));
+    assertEquals(Long.MAX_VALUE, copy.id);
+    assertEquals('B', copy.grade);
+    assertEquals(new Point(3, 4), copy.home);
+    assertEquals(0, copy.ignored);
+  } // classesRoundTrip()
+
+  /**
+   * Top-level collections, maps, and arrays read back the same.
+   */
+  @Test
+  public void collectionsAndMaps() throws Exception {
+    assertEquals(List.of(1L, "two", List.of(3.5), true),
+        JSON.parse("[1, \"two\", [3.5], true]", List.class));
+    Map<?, ?> map = JSON.parse("{\"b\": 1, \"a\": {\"c\": null}}", Map.class);
+    assertEquals("{\"b\":1,\"a\":{\"c\":null}}", JSON.toJSON((Object) map));
+    assertArrayEquals(new int[] {1, -2, 3}, JSON.parse("[1, -2, 3]", int[].class));
+    assertArrayEquals(new String[] {"x", null}, JSON.parse("[\"x\", null]", String[].class));
+    assertEquals(new BigDecimal("1e400"), JSON.parse("1e400", BigDecimal.class));
+  } // collectionsAndMaps()
+
+  /**
+   * Numbers that don't fit their type are rejected.
+   */
+  @Test
+  public void rangeErrors() {
+    assertThrows(ParseException.class, () -> JSON.parse("128", byte.class));
+    assertThrows(ParseException.class, () -> JSON.parse("-32769", Short.class));
+    assertThrows(ParseException.class, () -> JSON.parse("[2147483648]", int[].class));
+    assertThrows(ParseException.class, () -> JSON.parse("9223372036854775808", long.class));
+    assertThrows(ParseException.class, () -> JSON.parse("1.5", int.class));
+    assertThrows(ParseException.class, () -> JSON.parse("{\"level\": 40000}", Account.class));
+    assertThrows(ParseException.class, () -> JSON.parse("{\"x\": 1e10, \"y\": 0}", Point.class));
+  } // rangeErrors()
+
+  /**
+   * Values of the wrong type for a field, component, or array element
+   * are ParseExceptions, not ClassCastExceptions.
+   */
+  @Test
+  public void typeErrors() {
+    assertThrows(ParseException.class, () -> JSON.parse("{\"extra\": \"abc\"}", Account.class));
+    assertThrows(ParseException.class, () -> JSON.parse("{\"extra\": [1]}", Account.class));
+    assertThrows(ParseException.class, () -> JSON.parse("{\"value\": {}}", Measure.class));
+    assertThrows(ParseException.class, () -> JSON.parse("[1, \"a\"]", Number[].class));
+    assertThrows(ParseException.class, () -> JSON.parse("{\"home\": [3, 4]}", Account.class));
+    assertThrows(ParseException.class, () -> JSON.parse("{\"grade\": \"AB\"}", Account.class));
+  } // typeErrors()
+
+} // class JSONBinderTest
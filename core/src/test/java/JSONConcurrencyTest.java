@@ -0,0 +1,128 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that parsers running on many threads at once give the same
+ * results as parsing one document at a time.
+ *
+ * @author Marina Ananias
+ * @author Linda Jing
+ * @author Keely Miyamoto
+ */
+public class JSONConcurrencyTest {
+
+  /**
+   * The number of threads.
+   */
+  static final int THREADS = 8;
+
+  /**
+   * How many times each thread parses its document from each source.
+   */
+  static final int ROUNDS = 50;
+
+  /**
+   * Threads that each parse (and write) their own document, from
+   * strings, bytes, readers, and streams, all get what a single thread
+   * got.
+   */
+  @Test
+  public void parsersShareNothing() throws Exception {
+    String[] documents = new String[THREADS];
+    JSONValue[] expected = new JSONValue[THREADS];
+    for (int t = 0; t < THREADS; t++) {
+      documents[t] = document(t);
+      expected[t] = JSON.parse(documents[t]);
+    } // for
+    ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+    try {
+      List<Future<?>> results = new ArrayList<Future<?>>();
+      for (int t = 0; t < THREADS; t++) {
+        int thread = t;
+        results.add(pool.submit(() -> {
+          String text = documents[thread];
+          byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+          for (int round = 0; round < ROUNDS; round++) {
+            assertEquals(expected[thread], JSON.parse(text));
+            assertEquals(expected[thread], JSON.parse(bytes));
+            assertEquals(expected[thread], JSON.parse(new StringReader(text)));
+            assertEquals(expected[thread], JSON.parse(new ByteArrayInputStream(bytes)));
+            assertEquals(expected[thread], JSON.parse(JSON.toJSON(expected[thread])));
+          } // for
+          return null;
+        }));
+      } // for
+      for (Future<?> result : results) {
+        result.get();
+      } // for
+    } finally {
+      pool.shutdown();
+    } // try
+  } // parsersShareNothing()
+
+  /**
+   * Threads that race to read the same lazy tree all see its whole
+   * contents, never a partly parsed array or hash.
+   */
+  @Test
+  public void sharedLazyTree() throws Exception {
+    String text = document(0);
+    JSONValue expected = JSON.parse(text);
+    ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+    try {
+      for (int round = 0; round < ROUNDS; round++) {
+        JSONArray tree = (JSONArray) JSON.parseLazy(text);
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+        List<Future<?>> results = new ArrayList<Future<?>>();
+        for (int t = 0; t < THREADS; t++) {
+          int thread = t;
+          results.add(pool.submit(() -> {
+            start.await();
+            // Each thread starts at a different element, so they
+            // meet in the middle of parsing the same containers.
+            int size = tree.size();
+            for (int i = 0; i < size; i++) {
+              int index = (i + thread * size / THREADS) % size;
+              assertEquals(((JSONArray) expected).get(index), tree.get(index));
+            } // for
+            assertEquals(expected, tree);
+            return null;
+          }));
+        } // for
+        for (Future<?> result : results) {
+          result.get();
+        } // for
+      } // for
+    } finally {
+      pool.shutdown();
+    } // try
+  } // sharedLazyTree()
+
+  /**
+   * Build a document that differs for each thread.
+   */
+  static String document(int thread) {
+    StringBuilder out = new StringBuilder("[");
+    for (int i = 0; i < 500; i++) {
+      if (i > 0) {
+        out.append(',');
+      } // if
+      out.append("{\"id\":").append(thread * 1000 + i)
+          .append(",\"name\":\"t").append(thread).append("-\\u00e9").append(i)
+          .append("\",\"score\":").append(i + thread / 8.0 + 0.5)
+          .append(",\"tags\":[").append(thread).append(",").append(i).append("]}");
+    } // for
+    return out.append(']').toString();
+  } // document(int)
+
+} // class JSONConcurrencyTest
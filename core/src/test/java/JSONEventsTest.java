@@ -0,0 +1,278 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that every parse and write, successful or not, reaches the
+ * listener with the right operation and counts.
+ *
+ * @author Marina Ananias
+ * @author Linda Jing
+ * @author Keely Miyamoto
+ */
+public class JSONEventsTest {
+
+  /**
+   * A point, for binding.
+   */
+  public record Point(int x, int y) {
+  } // record Point
+
+  /**
+   * A listener that remembers what it was told.
+   */
+  static class Recorder implements JSONListener {
+    /**
+     * One line per call: the method, the operation, and the stats,
+     * length, or error.
+     */
+    List<String> calls = new ArrayList<String>();
+
+    /**
+     * The stats of the most recent parse.
+     */
+    JSONStats stats;
+
+    /**
+     * The error of the most recent failure.
+     */
+    Throwable error;
+
+    /**
+     * Remember a parse.
+     */
+    public synchronized void parsed(String operation, JSONStats stats, long nanos) {
+      this.calls.add("parsed " + operation);
+      this.stats = stats;
+    } // parsed(String, JSONStats, long)
+
+    /**
+     * Remember a failed parse.
+     */
+    public synchronized void parseFailed(String operation, JSONStats stats, Throwable error,
+        long nanos) {
+      this.calls.add("parseFailed " + operation);
+      this.stats = stats;
+      this.error = error;
+    } // parseFailed(String, JSONStats, Throwable, long)
+
+    /**
+     * Remember a write.
+     */
+    public synchronized void written(String operation, long length, long nanos) {
+      this.calls.add("written " + operation + " " + length);
+    } // written(String, long, long)
+
+    /**
+     * Remember a failed write.
+     */
+    public synchronized void writeFailed(String operation, long length, Throwable error,
+        long nanos) {
+      this.calls.add("writeFailed " + operation + " " + length);
+      this.error = error;
+    } // writeFailed(String, long, Throwable, long)
+  } // class Recorder
+
+  /**
+   * A handler that ignores everything.
+   */
+  static class Ignorer implements JSONHandler {
+    public void startArray() {
+    } // startArray()
+
+    public void endArray() {
+    } // endArray()
+
+    public void startHash() {
+    } // startHash()
+
+    public void endHash() {
+    } // endHash()
+
+    public void key(String key) {
+    } // key(String)
+
+    public void stringValue(String value) {
+    } // stringValue(String)
+
+    public void numberValue(long value) {
+    } // numberValue(long)
+
+    public void numberValue(BigInteger value) {
+    } // numberValue(BigInteger)
+
+    public void numberValue(double value) {
+    } // numberValue(double)
+
+    public void booleanValue(boolean value) {
+    } // booleanValue(boolean)
+
+    public void nullValue() {
+    } // nullValue()
+  } // class Ignorer
+
+  /**
+   * A stream of an empty array with any number of spaces inside.
+   */
+  static class Padded extends InputStream {
+    /**
+     * The number of bytes in the stream.
+     */
+    final long length;
+
+    /**
+     * The number of bytes read so far.
+     */
+    long position;
+
+    /**
+     * Build a stream with a given number of spaces.
+     */
+    Padded(long spaces) {
+      this.length = spaces + 2;
+    } // Padded(long)
+
+    public int read() {
+      byte[] one = new byte[1];
+      return (read(one, 0, 1) < 0) ? -1 : one[0];
+    } // read()
+
+    public int read(byte[] bytes, int start, int count) {
+      if (this.position == this.length) {
+        return -1;
+      } // if
+      count = (int) Math.min(count, this.length - this.position);
+      Arrays.fill(bytes, start, start + count, (byte) ' ');
+      if (this.position == 0) {
+        bytes[start] = '[';
+      } // if
+      this.position += count;
+      if (this.position == this.length) {
+        bytes[start + count - 1] = ']';
+      } // if
+      return count;
+    } // read(byte[], int, int)
+  } // class Padded
+
+  /**
+   * Stop listening after each test.
+   */
+  @AfterEach
+  public void reset() {
+    JSON.setListener(null);
+  } // reset()
+
+  /**
+   * A parse counts each kind of value, the depth, and the longest
+   * string, key or value.
+   */
+  @Test
+  public void countsValues() throws Exception {
+    Recorder recorder = listen();
+    String text = "{\"a\": [1, 2.5, \"xyz\", true], \"bbbb\": {\"c\": null}}";
+    JSON.parse(text);
+    assertEquals(List.of("parsed parse"), recorder.calls);
+    assertEquals("{input: " + text.length() + ", hashes: 2, arrays: 1, strings: 1, integers: 1,"
+        + " reals: 1, constants: 2, maxDepth: 2, longestString: 4}", recorder.stats.toString());
+  } // countsValues()
+
+  /**
+   * A failed parse is reported with its error and what was read before
+   * it.
+   */
+  @Test
+  public void reportsFailures() throws Exception {
+    Recorder recorder = listen();
+    ParseException e = assertThrows(ParseException.class, () -> JSON.parse("[1, 2, "));
+    assertEquals(List.of("parseFailed parse"), recorder.calls);
+    assertEquals(e, recorder.error);
+    assertEquals(2, recorder.stats.integers());
+    assertEquals(7, recorder.stats.input());
+  } // reportsFailures()
+
+  /**
+   * The input length counts every byte, even past 2^31.
+   */
+  @Test
+  public void countsLongInputs() throws Exception {
+    Recorder recorder = listen();
+    long spaces = Integer.MAX_VALUE + 1000L;
+    assertEquals(0, ((JSONArray) JSON.parse(new Padded(spaces))).size());
+    assertEquals(spaces + 2, recorder.stats.input());
+  } // countsLongInputs()
+
+  /**
+   * Handlers, binding, lines, and parallel parsing are all reported.
+   */
+  @Test
+  public void reportsEveryEntryPoint() throws Exception {
+    Recorder recorder = listen();
+    JSON.parse("[1, [2]]", new Ignorer());
+    assertEquals(2, recorder.stats.arrays());
+    assertEquals(new Point(1, 2), JSON.parse("{\"x\": 1, \"y\": 2}", Point.class));
+    assertEquals(2, recorder.stats.integers());
+    assertEquals(2, JSON.parseLines("{\"a\": 1}\n[2]\n").collect(Collectors.toList()).size());
+    JSONArray array = JSON.parseParallel("[[1], {\"b\": [2]}]".getBytes(StandardCharsets.UTF_8));
+    assertEquals(2, array.size());
+    assertEquals("{input: 17, hashes: 1, arrays: 3, strings: 0, integers: 2, reals: 0,"
+        + " constants: 0, maxDepth: 3, longestString: 1}", recorder.stats.toString());
+    assertThrows(ParseException.class, () -> JSON.parse("{\"x\": 1, \"y\": }", Point.class));
+    assertEquals(List.of("parsed parse", "parsed parse", "parsed parseLines",
+        "parsed parseLines", "parsed parseParallel", "parseFailed parse"), recorder.calls);
+  } // reportsEveryEntryPoint()
+
+  /**
+   * Writes report their length in characters or bytes, and a write
+   * that fails is reported too.
+   */
+  @Test
+  public void reportsWrites() throws Exception {
+    Recorder recorder = listen();
+    JSONValue value = JSON.parse("[\"café\"]");
+    recorder.calls.clear();
+    assertEquals("[\"café\"]", JSON.toJSON(value));
+    assertEquals(9, JSONByteWriter.toBytes(value).length);
+    assertEquals("{\"x\":1,\"y\":2}", JSON.toJSON((Object) new Point(1, 2)));
+    ByteBuffer small = ByteBuffer.allocate(4);
+    assertThrows(BufferOverflowException.class, () -> JSONByteWriter.writeTo(value, small));
+    assertInstanceOf(BufferOverflowException.class, recorder.error);
+    assertEquals(List.of("written toJSON 8", "written toBytes 9", "written toJSON 13",
+        "writeFailed writeTo 9"), recorder.calls);
+  } // reportsWrites()
+
+  /**
+   * With nobody listening, the reader counts nothing.
+   */
+  @Test
+  public void quietWithoutListener() throws Exception {
+    JSONParser parser = new JSONParser("[1, {\"a\": 2}]");
+    JSONEvents.parse("parse", null, parser);
+    assertNull(parser.reader.stats);
+    assertTrue(JSONEvents.startParse() == null);
+  } // quietWithoutListener()
+
+  /**
+   * Install a new recorder.
+   */
+  static Recorder listen() {
+    Recorder recorder = new Recorder();
+    JSON.setListener(recorder);
+    return recorder;
+  } // listen()
+
+} // class JSONEventsTest
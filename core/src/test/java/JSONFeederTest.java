@@ -0,0 +1,114 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the non-blocking parser: values fed in pieces come out the
+ * same as parsed whole, and partial tokens are resumed rather than
+ * scanned again.
+ *
+ * @author Marina Ananias
+ * @author Linda Jing
+ * @author Keely Miyamoto
+ */
+public class JSONFeederTest {
+
+  /**
+   * A document with strings, escapes, multi-byte characters, numbers,
+   * and nesting, so that pieces end in every kind of token.
+   */
+  static final String DOCUMENT = "{\"na\\u00e9me\\\"\": \"caf\u00e9 \ud83d\ude00 \\n\", "
+      + "\"nums\": [1, -22, 3.25e-2, 12345678901234567890], \"lit\": [true, false, null], "
+      + "\"nested\": {\"a\": [[], {}], \"b\": {\"c\": 1}}}";
+
+  /**
+   * Feeding one byte at a time, or in random pieces, gives the same
+   * value as parsing the whole document.
+   */
+  @Test
+  public void piecesMatchParse() throws Exception {
+    byte[] bytes = DOCUMENT.getBytes(StandardCharsets.UTF_8);
+    JSONValue expected = JSON.parse(bytes);
+    Random random = new Random(207);
+    for (int trial = 0; trial < 100; trial++) {
+      JSONFeeder feeder = new JSONFeeder();
+      JSONValue value = null;
+      int position = 0;
+      while ((value == null) && (position < bytes.length)) {
+        int length = (trial == 0) ? 1 : Math.min(1 + random.nextInt(12), bytes.length - position);
+        feeder.feed(bytes, position, length);
+        position += length;
+        value = feeder.nextValue();
+      } // while
+      assertEquals(expected, value);
+      feeder.endOfInput();
+      assertEquals(JSONToken.END, feeder.nextToken());
+    } // for
+  } // piecesMatchParse()
+
+  /**
+   * A top-level number is only finished at the end of the input.
+   */
+  @Test
+  public void numberNeedsEndOfInput() throws Exception {
+    JSONFeeder feeder = new JSONFeeder();
+    feeder.feed("12".getBytes(StandardCharsets.UTF_8), 0, 2);
+    assertEquals(JSONToken.NEED_MORE_INPUT, feeder.nextToken());
+    feeder.feed("34".getBytes(StandardCharsets.UTF_8), 0, 2);
+    assertEquals(JSONToken.NEED_MORE_INPUT, feeder.nextToken());
+    feeder.endOfInput();
+    assertEquals(JSONToken.INTEGER, feeder.nextToken());
+    assertEquals(JSONInteger.valueOf(1234), feeder.getNumber());
+  } // numberNeedsEndOfInput()
+
+  /**
+   * A long string keeps its scanning state between pieces, including
+   * a backslash at the end of a piece, and is lexed once it ends.
+   */
+  @Test
+  public void resumesLongStrings() throws Exception {
+    JSONFeeder feeder = new JSONFeeder();
+    feed(feeder, "[\"abc");
+    assertNull(feeder.nextValue());
+    for (int i = 0; i < 1000; i++) {
+      feed(feeder, "defgh\\");
+      assertNull(feeder.nextValue());
+      assertEquals(JSONFeeder.FeedLexer.IN_ESCAPE, feeder.lexer.state);
+      assertEquals(feeder.lexer.limit, feeder.lexer.scanned);
+      feed(feeder, "\"");
+      assertNull(feeder.nextValue());
+      assertEquals(JSONFeeder.FeedLexer.IN_STRING, feeder.lexer.state);
+    } // for
+    feed(feeder, "\"]");
+    JSONArray array = (JSONArray) feeder.nextValue();
+    assertEquals("abc" + "defgh\"".repeat(1000), ((JSONString) array.get(0)).getValue());
+  } // resumesLongStrings()
+
+  /**
+   * Errors are still reported once the bad input has arrived.
+   */
+  @Test
+  public void reportsErrors() {
+    JSONFeeder feeder = new JSONFeeder();
+    feed(feeder, "[1, 2");
+    feeder.endOfInput();
+    assertThrows(ParseException.class, () -> feeder.nextValue());
+    JSONFeeder other = new JSONFeeder();
+    feed(other, "[1 x");
+    assertThrows(ParseException.class, () -> other.nextValue());
+  } // reportsErrors()
+
+  /**
+   * Feed the UTF-8 bytes of some text.
+   */
+  static void feed(JSONFeeder feeder, String text) {
+    byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+    feeder.feed(bytes, 0, bytes.length);
+  } // feed(JSONFeeder, String)
+
+} // class JSONFeederTest
@@ -0,0 +1,114 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for push-style parsing: handlers see every token in order, and
+ * reals can be had with every digit.
+ *
+ * @author Marina Ananias
+ * @author Linda Jing
+ * @author Keely Miyamoto
+ */
+public class JSONHandlerTest {
+
+  /**
+   * A document whose reals do not survive as doubles.
+   */
+  static final String DOCUMENT = "{\"a\": [0.10000000000000000001, 1e400, -2.5E-3], "
+      + "\"b\": 12345678901234567890, \"c\": [1, \"x\", true, null]}";
+
+  /**
+   * A handler that writes down each call.
+   */
+  static class Recorder implements JSONHandler {
+    /**
+     * One entry per call.
+     */
+    List<String> calls = new ArrayList<String>();
+
+    public void startArray() {
+      this.calls.add("[");
+    } // startArray()
+
+    public void endArray() {
+      this.calls.add("]");
+    } // endArray()
+
+    public void startHash() {
+      this.calls.add("{");
+    } // startHash()
+
+    public void endHash() {
+      this.calls.add("}");
+    } // endHash()
+
+    public void key(String key) {
+      this.calls.add("key " + key);
+    } // key(String)
+
+    public void stringValue(String value) {
+      this.calls.add("string " + value);
+    } // stringValue(String)
+
+    public void numberValue(long value) {
+      this.calls.add("long " + value);
+    } // numberValue(long)
+
+    public void numberValue(BigInteger value) {
+      this.calls.add("big " + value);
+    } // numberValue(BigInteger)
+
+    public void numberValue(double value) {
+      this.calls.add("double " + value);
+    } // numberValue(double)
+
+    public void booleanValue(boolean value) {
+      this.calls.add("boolean " + value);
+    } // booleanValue(boolean)
+
+    public void nullValue() {
+      this.calls.add("null");
+    } // nullValue()
+  } // class Recorder
+
+  /**
+   * By default, reals arrive as the nearest double.
+   */
+  @Test
+  public void realsAsDoubles() throws Exception {
+    Recorder handler = new Recorder();
+    JSON.parse(DOCUMENT, handler);
+    assertEquals(List.of("{", "key a", "[", "double 0.1", "double Infinity", "double -0.0025",
+        "]", "key b", "big 12345678901234567890", "key c", "[", "long 1", "string x",
+        "boolean true", "null", "]", "}"), handler.calls);
+  } // realsAsDoubles()
+
+  /**
+   * A handler that overrides numberValue(String) gets every digit, from
+   * text and from bytes.
+   */
+  @Test
+  public void realsAsDigits() throws Exception {
+    List<BigDecimal> reals = new ArrayList<BigDecimal>();
+    Recorder handler = new Recorder() {
+      public void numberValue(String digits) {
+        reals.add(new BigDecimal(digits));
+      } // numberValue(String)
+    };
+    JSON.parse(DOCUMENT, handler);
+    JSON.parse(DOCUMENT.getBytes(StandardCharsets.UTF_8), handler);
+    List<BigDecimal> expected = List.of(new BigDecimal("0.10000000000000000001"),
+        new BigDecimal("1e400"), new BigDecimal("-0.0025"));
+    assertEquals(2 * expected.size(), reals.size());
+    for (int i = 0; i < reals.size(); i++) {
+      assertEquals(0, expected.get(i % expected.size()).compareTo(reals.get(i)));
+    } // for
+  } // realsAsDigits()
+
+} // class JSONHandlerTest
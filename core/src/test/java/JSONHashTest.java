@@ -0,0 +1,201 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for hashes, in both the compact form and the open-addressing
+ * table: lookups, overwrites, collisions, clearing, order, and
+ * equality.
+ *
+ * @author Marina Ananias
+ * @author Linda Jing
+ * @author Keely Miyamoto
+ */
+public class JSONHashTest {
+
+  /**
+   * Keys whose strings all have the same hash code.
+   */
+  static final String[] COLLIDING = {"Aa", "BB", "AaAa", "AaBB", "BBAa", "BBBB"};
+
+  /**
+   * Setting a key that is already there replaces its value without
+   * moving it, before and after the hash builds its table.
+   */
+  @Test
+  public void overwritesInPlace() throws Exception {
+    for (int count : new int[] {3, 3 * JSONHash.COMPACT_LIMIT}) {
+      JSONHash hash = fill(count);
+      hash.set(key(1), new JSONString("new"));
+      assertEquals(count, hash.size());
+      assertEquals(new JSONString("new"), hash.get(key(1)));
+      assertEquals(keys(count), keysOf(hash));
+    } // for
+  } // overwritesInPlace()
+
+  /**
+   * The hash stays compact up to COMPACT_LIMIT keys, builds its table
+   * on the next one, and finds every key on both sides of that.
+   */
+  @Test
+  public void promotes() throws Exception {
+    JSONHash hash = fill(JSONHash.COMPACT_LIMIT);
+    assertNull(hash.table);
+    assertAll(hash, JSONHash.COMPACT_LIMIT);
+    hash.set(key(JSONHash.COMPACT_LIMIT), JSONInteger.valueOf(JSONHash.COMPACT_LIMIT));
+    assertNotNull(hash.table);
+    assertAll(hash, JSONHash.COMPACT_LIMIT + 1);
+    for (int i = JSONHash.COMPACT_LIMIT + 1; i < 1000; i++) {
+      hash.set(key(i), JSONInteger.valueOf(i));
+    } // for
+    assertAll(hash, 1000);
+    assertEquals(keys(1000), keysOf(hash));
+  } // promotes()
+
+  /**
+   * Keys with the same hash code are kept apart, compact or not.
+   */
+  @Test
+  public void collisions() throws Exception {
+    JSONHash hash = new JSONHash();
+    for (int round = 0; round < 3; round++) {
+      for (String key : COLLIDING) {
+        hash.set(new JSONString(key + round), new JSONString(key));
+      } // for
+    } // for
+    assertNotNull(hash.table);
+    assertEquals(3 * COLLIDING.length, hash.size());
+    for (String key : COLLIDING) {
+      assertEquals(new JSONString(key), hash.get(new JSONString(key + 2)));
+    } // for
+
+    JSONHash small = new JSONHash();
+    small.set(new JSONString("Aa"), JSONInteger.valueOf(1));
+    small.set(new JSONString("BB"), JSONInteger.valueOf(2));
+    small.set(new JSONString("Aa"), JSONInteger.valueOf(3));
+    assertNull(small.table);
+    assertEquals(2, small.size());
+    assertEquals(JSONInteger.valueOf(3), small.get(new JSONString("Aa")));
+    assertEquals(JSONInteger.valueOf(2), small.get(new JSONString("BB")));
+    assertThrows(IndexOutOfBoundsException.class, () -> small.get(new JSONString("C#")));
+  } // collisions()
+
+  /**
+   * A cleared hash is empty and can be filled again.
+   */
+  @Test
+  public void clearsAndReuses() throws Exception {
+    JSONHash hash = fill(100);
+    hash.clear();
+    assertEquals(0, hash.size());
+    assertNull(hash.table);
+    assertEquals("{}", JSON.toJSON(hash));
+    assertThrows(IndexOutOfBoundsException.class, () -> hash.get(key(1)));
+    for (int i = 20; i > 0; i--) {
+      hash.set(key(i), JSONInteger.valueOf(i));
+    } // for
+    assertEquals(20, hash.size());
+    assertEquals(JSONInteger.valueOf(7), hash.get(key(7)));
+    assertThrows(IndexOutOfBoundsException.class, () -> hash.get(key(50)));
+  } // clearsAndReuses()
+
+  /**
+   * Iterating and writing both follow the order in which keys
+   * were first set.
+   */
+  @Test
+  public void keepsOrder() throws Exception {
+    JSONHash hash = new JSONHash();
+    String[] names = {"z", "a", "m", "b", "y", "c", "x", "d", "w", "e"};
+    StringBuilder expected = new StringBuilder("{");
+    for (int i = 0; i < names.length; i++) {
+      hash.set(new JSONString(names[i]), JSONInteger.valueOf(i));
+      expected.append((i > 0) ? "," : "").append('"').append(names[i]).append("\":").append(i);
+    } // for
+    hash.set(new JSONString("z"), JSONInteger.valueOf(0));
+    assertEquals(List.of(names), keysOf(hash));
+    assertEquals(expected.append("}").toString(), JSON.toJSON(hash));
+    assertEquals(JSON.toJSON(hash), JSON.toJSON(JSON.parse(JSON.toJSON(hash))));
+  } // keepsOrder()
+
+  /**
+   * Hashes with the same entries in a different order are equal and
+   * have the same hash code; a different value or key is not equal.
+   */
+  @Test
+  public void equalityIgnoresOrder() throws Exception {
+    for (int count : new int[] {5, 50}) {
+      JSONHash forward = fill(count);
+      JSONHash backward = new JSONHash();
+      for (int i = count - 1; i >= 0; i--) {
+        backward.set(key(i), JSONInteger.valueOf(i));
+      } // for
+      assertEquals(forward, backward);
+      assertEquals(backward, forward);
+      assertEquals(forward.hashCode(), backward.hashCode());
+      backward.set(key(0), JSONInteger.valueOf(-1));
+      assertNotEquals(forward, backward);
+      backward.set(key(0), JSONInteger.valueOf(0));
+      assertEquals(forward, backward);
+      backward.set(key(count), JSONInteger.valueOf(count));
+      forward.set(key(count + 1), JSONInteger.valueOf(count));
+      assertNotEquals(forward, backward);
+    } // for
+    assertEquals(JSON.parse("{\"a\": 1, \"b\": [2]}"), JSON.parse("{\"b\": [2], \"a\": 1}"));
+  } // equalityIgnoresOrder()
+
+  /**
+   * The key for a number.
+   */
+  static JSONString key(int i) {
+    return new JSONString("key" + i);
+  } // key(int)
+
+  /**
+   * The names of the first count keys, in order.
+   */
+  static List<String> keys(int count) {
+    List<String> result = new ArrayList<String>();
+    for (int i = 0; i < count; i++) {
+      result.add(key(i).getValue());
+    } // for
+    return result;
+  } // keys(int)
+
+  /**
+   * A hash that maps each of the first count keys to its number.
+   */
+  static JSONHash fill(int count) {
+    JSONHash hash = new JSONHash();
+    for (int i = 0; i < count; i++) {
+      hash.set(key(i), JSONInteger.valueOf(i));
+    } // for
+    return hash;
+  } // fill(int)
+
+  /**
+   * The names of the keys of a hash, in order.
+   */
+  static List<String> keysOf(JSONHash hash) {
+    List<String> result = new ArrayList<String>();
+    hash.iterator().forEachRemaining((pair) -> result.add(pair.key().getValue()));
+    return result;
+  } // keysOf(JSONHash)
+
+  /**
+   * Check that a hash maps each of the first count keys to its number.
+   */
+  static void assertAll(JSONHash hash, int count) {
+    assertEquals(count, hash.size());
+    for (int i = 0; i < count; i++) {
+      assertEquals(JSONInteger.valueOf(i), hash.get(key(i)));
+    } // for
+  } // assertAll(JSONHash, int)
+
+} // class JSONHashTest
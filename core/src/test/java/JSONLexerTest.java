@@ -0,0 +1,39 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the stream lexers at the edges of their buffers.
+ *
+ * @author Marina Ananias
+ * @author Linda Jing
+ * @author Keely Miyamoto
+ */
+public class JSONLexerTest {
+
+  /**
+   * A number that ends the input is read from the right place, even
+   * when the lexer had to move the buffer to look past it.
+   */
+  @Test
+  public void numberAtEndOfStream() throws Exception {
+    String[] documents = {
+        "  123",
+        "123",
+        " ".repeat(JSONLexer.BUFFER_SIZE - 2) + "12345",
+        " ".repeat(JSONLexer.BUFFER_SIZE - 2) + "-1.5e3",
+        "[" + " ".repeat(JSONLexer.BUFFER_SIZE) + "98765]",
+    };
+    for (String document : documents) {
+      JSONValue expected = JSON.parse(document);
+      assertEquals(expected, JSON.parse(new StringReader(document)), document.trim());
+      assertEquals(expected, JSON.parse(
+          new ByteArrayInputStream(document.getBytes(StandardCharsets.UTF_8))), document.trim());
+    } // for
+    assertEquals(JSONInteger.valueOf(123), JSON.parse(new StringReader("  123")));
+  } // numberAtEndOfStream()
+
+} // class JSONLexerTest
@@ -0,0 +1,60 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that parsing an array in parallel accepts and rejects the same
+ * documents as parsing it in one piece, including at chunk boundaries.
+ *
+ * @author Marina Ananias
+ * @author Linda Jing
+ * @author Keely Miyamoto
+ */
+public class JSONParallelTest {
+
+  /**
+   * A string long enough that the comma after it ends a chunk.
+   */
+  static final String BIG = "\"" + "x".repeat(JSONParallel.CHUNK_SIZE) + "\"";
+
+  /**
+   * Valid arrays give the same elements either way.
+   */
+  @Test
+  public void matchesParse() throws Exception {
+    String[] documents = {
+        "[]", "[ ]", "[1,2]", "[\"]\", {\"a\": [1, {}]}]",
+        "[" + BIG + ", 1]", "[" + BIG + ", " + BIG + ", [3]]",
+    };
+    for (String document : documents) {
+      assertEquals(JSON.parse(document), parallel(document));
+    } // for
+  } // matchesParse()
+
+  /**
+   * Invalid arrays are rejected either way.
+   */
+  @Test
+  public void rejectsWhatParseRejects() {
+    String[] documents = {
+        "[1,2}", "[{]}", "[[1]", "[1]]", "[1,]", "[,1]", "[1,,2]", "[1 2]",
+        "[" + BIG + ", ]", "[" + BIG + ",, 1]", "[" + BIG + ", " + BIG + ",]",
+        "[" + BIG + ", {]", "[" + BIG + ", [}]",
+    };
+    for (String document : documents) {
+      assertThrows(ParseException.class, () -> JSON.parse(document));
+      assertThrows(ParseException.class, () -> parallel(document));
+    } // for
+  } // rejectsWhatParseRejects()
+
+  /**
+   * Parse a document in parallel.
+   */
+  static JSONArray parallel(String document) throws Exception {
+    return JSON.parseParallel(document.getBytes(StandardCharsets.UTF_8));
+  } // parallel(String)
+
+} // class JSONParallelTest
@@ -0,0 +1,82 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for paths: selecting while reading gives the same values as
+ * selecting from the parsed tree, repeated keys included.
+ *
+ * @author Marina Ananias
+ * @author Linda Jing
+ * @author Keely Miyamoto
+ */
+public class JSONPathTest {
+
+  /**
+   * A document with repeated keys, at the top and further down, and a
+   * key that is literally "*".
+   */
+  static final String DOCUMENT = "{\"a\": 1, \"b\": {\"x\": [1, 2], \"y\": 3}, \"a\": 2, "
+      + "\"*\": {\"k\": \"star\"}, \"b\": {\"x\": [4], \"x\": [5, 6]}, "
+      + "\"c\": [{\"d\": 7, \"d\": 8}, {\"d\": 9}]}";
+
+  /**
+   * Paths to try, with what they should select.
+   */
+  static final String[][] CASES = {
+      {"", "[{\"a\":2,\"b\":{\"x\":[5,6]},\"*\":{\"k\":\"star\"},\"c\":[{\"d\":8},{\"d\":9}]}]"},
+      {"/a", "[2]"},
+      {"/b/x", "[[5,6]]"},
+      {"/b/y", "[]"},
+      {"/b/x/1", "[6]"},
+      {"/*", "[2,{\"x\":[5,6]},{\"k\":\"star\"},[{\"d\":8},{\"d\":9}]]"},
+      {"/*/x/*", "[5,6]"},
+      {"/c/*/d", "[8,9]"},
+      {"/~2/k", "[\"star\"]"},
+      {"/*/k", "[\"star\"]"},
+      {"/nope/*", "[]"},
+  };
+
+  /**
+   * Selecting from a string, from bytes, and from the tree all agree
+   * with what we expect.
+   */
+  @Test
+  public void streamingMatchesTree() throws Exception {
+    JSONValue tree = JSON.parse(DOCUMENT);
+    for (String[] test : CASES) {
+      JSONPath path = JSONPath.compile(test[0]);
+      JSONArray array = (JSONArray) JSON.parse(test[1]);
+      List<JSONValue> expected = new ArrayList<JSONValue>();
+      for (int i = 0; i < array.size(); i++) {
+        expected.add(array.get(i));
+      } // for
+      assertEquals(expected, path.select(tree), test[0]);
+      assertEquals(expected, JSON.select(DOCUMENT, test[0]), test[0]);
+      assertEquals(expected, JSON.select(DOCUMENT.getBytes(StandardCharsets.UTF_8), test[0]),
+          test[0]);
+    } // for
+  } // streamingMatchesTree()
+
+  /**
+   * The escapes stand for '~', '/', and '*'; anything else after '~'
+   * is an error.
+   */
+  @Test
+  public void escapes() throws Exception {
+    JSONValue tree = JSON.parse("{\"a/b\": 1, \"~\": 2, \"*\": 3, \"x*~\": 4, \"y\": 5}");
+    assertEquals(List.of(JSONInteger.valueOf(1)), JSONPath.compile("/a~1b").select(tree));
+    assertEquals(List.of(JSONInteger.valueOf(2)), JSONPath.compile("/~0").select(tree));
+    assertEquals(List.of(JSONInteger.valueOf(3)), JSONPath.compile("/~2").select(tree));
+    assertEquals(List.of(JSONInteger.valueOf(4)), JSONPath.compile("/x~2~0").select(tree));
+    assertEquals(5, JSONPath.compile("/*").select(tree).size());
+    assertThrows(ParseException.class, () -> JSONPath.compile("/a~3"));
+    assertThrows(ParseException.class, () -> JSONPath.compile("/a~"));
+  } // escapes()
+
+} // class JSONPathTest
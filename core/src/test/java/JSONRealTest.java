@@ -0,0 +1,61 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.math.BigDecimal;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that reals keep their digits, whether they sit in an array
+ * (which may pack them into a double[]) or in a hash.
+ *
+ * @author Marina Ananias
+ * @author Linda Jing
+ * @author Keely Miyamoto
+ */
+public class JSONRealTest {
+
+  /**
+   * Reals that a double cannot hold exactly come back with all their
+   * digits from both kinds of container.
+   */
+  @Test
+  public void keepsPrecision() throws Exception {
+    String pi = "3.14159265358979323846264338327950288";
+    JSONArray array = (JSONArray) JSON.parse("[" + pi + "]");
+    JSONHash hash = (JSONHash) JSON.parse("{\"pi\": " + pi + "}");
+    assertEquals(new BigDecimal(pi), ((JSONReal) array.get(0)).getValue());
+    assertEquals(new BigDecimal(pi), ((JSONReal) hash.get(new JSONString("pi"))).getValue());
+  } // keepsPrecision()
+
+  /**
+   * Writing a parsed array or hash of reals gives back the same digits.
+   */
+  @Test
+  public void roundTrips() throws Exception {
+    String[] documents = {
+        "[1.50,2.0e3,0.1]",
+        "[1.5,2.5,-0.25]",
+        "[1.5,1e400,2.5]",
+        "[0.1,3.14159265358979323846264338327950288]",
+        "{\"a\":1.50,\"b\":2.0e3,\"c\":0.1}",
+        "{\"a\":[1.5,2.50],\"b\":{\"c\":1E-7}}",
+    };
+    for (String document : documents) {
+      JSONValue value = JSON.parse(document);
+      assertEquals(document, JSON.toJSON(value));
+      assertEquals(document, new String(value.toBytes(), "UTF-8"));
+    } // for
+  } // roundTrips()
+
+  /**
+   * Reals are packed however they were written, and keep their digits.
+   */
+  @Test
+  public void packsReals() throws Exception {
+    JSONArray array = (JSONArray) JSON.parse("[1.5, 2.250, -0.1, 1e-05]");
+    assertNotNull(array.doubles);
+    assertEquals("2.250", array.get(1).toString());
+    assertEquals("1e-05", array.get(3).toString());
+  } // packsReals()
+
+} // class JSONRealTest